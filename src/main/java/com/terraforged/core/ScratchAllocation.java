@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.core;
+
+import com.terraforged.core.filter.Erosion;
+import com.terraforged.core.filter.Modifier;
+import com.terraforged.core.filter.SampleMap;
+import com.terraforged.core.settings.Settings;
+import com.terraforged.world.heightmap.Levels;
+import com.terraforged.world.rivermap.river.RiverPath;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+// Reports the bytes allocated per block by the river lookup & erosion paths with and without the ThreadContext
+// scratch objects, measured per thread with ThreadMXBean#getThreadAllocatedBytes. 'Without' is the allocating
+// RiverPath.getValues overload, and erosion run on a fresh thread (so a fresh context) each time. Exits non-zero
+// if the scratch paths allocate a byte or more per block
+public class ScratchAllocation {
+
+    private static final ThreadContext.Key<float[]> VALUES = ThreadContext.register(() -> new float[4]);
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static volatile float sink;
+
+    public static void main(String[] args) throws InterruptedException {
+        int size = 256;
+        int runs = 10;
+        int lookups = 1_000_000;
+
+        RiverPath path = createPath();
+        Settings settings = new Settings();
+        Levels levels = new Levels(settings.world);
+        Erosion erosion = new Erosion(settings.filters.erosion.copy(), levels, Modifier.range(levels.ground, levels.ground(15)));
+        SampleMap map = new SampleMap(size, 987, levels);
+        int iterations = settings.filters.erosion.iterations;
+        long cells = (long) size * size;
+
+        // warm up both paths so that class loading & the first scratch allocations aren't counted
+        rivers(path, lookups, false);
+        rivers(path, lookups, true);
+        erosion.apply(map.reset(), 0, 0, iterations);
+
+        double riverBefore = perBlock(() -> rivers(path, lookups, false), lookups);
+        double riverAfter = perBlock(() -> rivers(path, lookups, true), lookups);
+
+        double erosionBefore = 0D;
+        for (int i = 0; i < runs; i++) {
+            double[] bytes = new double[1];
+            Thread thread = new Thread(() -> bytes[0] = perBlock(() -> erosion.apply(map.reset(), 0, 0, iterations), cells));
+            thread.start();
+            thread.join();
+            erosionBefore += bytes[0] / runs;
+        }
+        double erosionAfter = perBlock(() -> {
+            for (int i = 0; i < runs; i++) {
+                erosion.apply(map.reset(), 0, 0, iterations);
+            }
+        }, cells * runs);
+
+        System.out.printf("River lookup: %.3f bytes/block without scratch, %.3f bytes/block with\n", riverBefore, riverAfter);
+        System.out.printf("Erosion: %.3f bytes/block with a fresh context, %.3f bytes/block with\n", erosionBefore, erosionAfter);
+
+        if (riverAfter >= 1D || erosionAfter >= 1D) {
+            System.out.println("Scratch paths allocate 1 byte or more per block");
+            System.exit(1);
+        }
+    }
+
+    private static void rivers(RiverPath path, int lookups, boolean scratch) {
+        float total = 0F;
+        for (int i = 0; i < lookups; i++) {
+            float x = i & 1023;
+            float z = (i >> 10) & 1023;
+            float[] values = scratch ? path.getValues(x, z, VALUES.get()) : path.getValues(x, z);
+            total += values[0];
+        }
+        sink += total;
+    }
+
+    // bytes allocated by the current thread while running the task, divided by the number of blocks it covered
+    private static double perBlock(Runnable task, long blocks) {
+        long id = Thread.currentThread().getId();
+        long start = THREADS.getThreadAllocatedBytes(id);
+        task.run();
+        return (double) (THREADS.getThreadAllocatedBytes(id) - start) / blocks;
+    }
+
+    private static RiverPath createPath() {
+        List<Integer> x = new ArrayList<>();
+        List<Integer> z = new ArrayList<>();
+        List<Float> heights = new ArrayList<>();
+        for (int i = 0; i <= 16; i++) {
+            x.add(i * 64);
+            z.add(512 + (int) (Math.sin(i * 0.7) * 200));
+            heights.add(0.6F - i * 0.01F);
+        }
+        return new RiverPath(x, z, heights, 32 * 32);
+    }
+}
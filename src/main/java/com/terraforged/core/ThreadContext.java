@@ -27,9 +27,75 @@ package com.terraforged.core;
 import com.terraforged.core.cell.Cell;
 import com.terraforged.core.concurrent.Resource;
 import com.terraforged.core.concurrent.SimpleResource;
+import com.terraforged.core.concurrent.thread.context.ContextualThread;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 // used to attach high-demand resources to TF controlled worker threads
 public class ThreadContext {
-    
+
+    private static final Object[] EMPTY = {};
+    private static final AtomicInteger SLOTS = new AtomicInteger();
+
+    // threads that are not ContextualThreads (eg the server thread) get their own context lazily
+    private static final ThreadLocal<ThreadContext> FALLBACK = ThreadLocal.withInitial(ThreadContext::new);
+
     public final Resource<Cell> cell = new SimpleResource<>(new Cell(), Cell::reset);
+
+    private Object[] scratch = EMPTY;
+
+    /**
+     * Gets this context's instance of the slot's scratch object, creating it on first use. Scratch objects are
+     * only valid until the owning code next uses the same slot, so must not be held or shared between threads
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Key<T> key) {
+        int index = key.index;
+        if (index >= scratch.length) {
+            scratch = Arrays.copyOf(scratch, Math.max(index + 1, SLOTS.get()));
+        }
+
+        Object value = scratch[index];
+        if (value == null) {
+            value = key.factory.get();
+            scratch[index] = value;
+        }
+
+        return (T) value;
+    }
+
+    public static ThreadContext current() {
+        Thread thread = Thread.currentThread();
+        if (thread instanceof ContextualThread) {
+            return ((ContextualThread) thread).getContext();
+        }
+        return FALLBACK.get();
+    }
+
+    /**
+     * Registers a scratch slot. Intended to be assigned to a static field by the module that uses it
+     */
+    public static <T> Key<T> register(Supplier<T> factory) {
+        return new Key<>(SLOTS.getAndIncrement(), factory);
+    }
+
+    public static final class Key<T> {
+
+        private final int index;
+        private final Supplier<T> factory;
+
+        private Key(int index, Supplier<T> factory) {
+            this.index = index;
+            this.factory = factory;
+        }
+
+        /**
+         * Gets the current thread's instance of this slot
+         */
+        public T get() {
+            return current().get(this);
+        }
+    }
 }
@@ -50,6 +50,9 @@ public class Cell {
 
     private static final ObjectPool<Cell> POOL = new ObjectPool<>(32, Cell::new);
 
+    // approximate retained size of a cell (object header, fields & the array slot referencing it)
+    public static final int SIZE_BYTES = 104;
+
     public int continentX;
     public int continentZ;
     public float continentEdge;
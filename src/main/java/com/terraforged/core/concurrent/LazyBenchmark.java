@@ -0,0 +1,188 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.core.concurrent;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+// Times the read path (call() & isDone() on an already computed value) of LazyFuture against the read-write
+// lock version it replaced, on one thread and with every core reading the same instance, plus the cost of
+// many threads racing to create a fresh value. Figures are nanoseconds per call, averaged over all threads
+public class LazyBenchmark {
+
+    private static volatile int sink;
+
+    public static void main(String[] args) throws InterruptedException {
+        int calls = 20_000_000;
+        int rounds = 5;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        for (int round = 0; round < rounds; round++) {
+            // the first rounds are warm up
+            boolean print = round >= rounds - 2;
+
+            double lazy = reads(new Lazy<>(() -> "value"), 1, calls);
+            double locked = reads(new Locked<>(() -> "value"), 1, calls);
+            double lazyContended = reads(new Lazy<>(() -> "value"), cores, calls / cores);
+            double lockedContended = reads(new Locked<>(() -> "value"), cores, calls / cores);
+            double lazyCreate = creates(() -> new Lazy<>(LazyBenchmark::slow), cores, 2000);
+            double lockedCreate = creates(() -> new Locked<>(LazyBenchmark::slow), cores, 2000);
+
+            if (print) {
+                System.out.printf("Uncontended read: Lazy %.2fns, Locked %.2fns\n", lazy, locked);
+                System.out.printf("Contended read (%s threads): Lazy %.2fns, Locked %.2fns\n", cores, lazyContended, lockedContended);
+                System.out.printf("Racing create (%s threads): Lazy %.2fns, Locked %.2fns\n", cores, lazyCreate, lockedCreate);
+            }
+        }
+    }
+
+    private static double reads(Reader<String> lazy, int threads, int calls) throws InterruptedException {
+        lazy.read();
+        return run(threads, () -> {
+            int hash = 0;
+            for (int i = 0; i < calls; i++) {
+                if (lazy.done()) {
+                    hash += lazy.read().length();
+                }
+            }
+            sink += hash;
+        }) / calls;
+    }
+
+    private static double creates(Supplier<Reader<String>> factory, int threads, int count) throws InterruptedException {
+        double total = 0D;
+        for (int i = 0; i < count; i++) {
+            Reader<String> lazy = factory.get();
+            total += run(threads, () -> sink += lazy.read().length());
+        }
+        return total / count;
+    }
+
+    // runs the task on each of the threads at once, returning the average nanoseconds each took
+    private static double run(int threads, Runnable task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        long[] times = new long[threads];
+
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            new Thread(() -> {
+                try {
+                    start.await();
+                    long begin = System.nanoTime();
+                    task.run();
+                    times[index] = System.nanoTime() - begin;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        start.countDown();
+        done.await();
+
+        long total = 0L;
+        for (long time : times) {
+            total += time;
+        }
+        return (double) total / threads;
+    }
+
+    private static String slow() {
+        int hash = 0;
+        for (int i = 0; i < 1000; i++) {
+            hash = hash * 31 + i;
+        }
+        return Integer.toString(hash);
+    }
+
+    private interface Reader<T> {
+
+        T read();
+
+        boolean done();
+    }
+
+    private static class Lazy<T> extends LazyFuture<T> implements Reader<T> {
+
+        private Lazy(Supplier<T> supplier) {
+            super(supplier);
+        }
+
+        @Override
+        public T read() {
+            return call();
+        }
+
+        @Override
+        public boolean done() {
+            return isDone();
+        }
+    }
+
+    // the read-write lock implementation that LazyCallable used to have
+    private static class Locked<T> implements Reader<T> {
+
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Supplier<T> supplier;
+
+        private T value = null;
+
+        private Locked(Supplier<T> supplier) {
+            this.supplier = supplier;
+        }
+
+        @Override
+        public T read() {
+            lock.readLock().lock();
+            T result = this.value;
+            lock.readLock().unlock();
+
+            if (result == null) {
+                lock.writeLock().lock();
+                result = this.value;
+                if (result == null) {
+                    result = supplier.get();
+                    this.value = result;
+                }
+                lock.writeLock().unlock();
+            }
+
+            return result;
+        }
+
+        @Override
+        public boolean done() {
+            lock.readLock().lock();
+            T result = this.value;
+            lock.readLock().unlock();
+            return result != null;
+        }
+    }
+}
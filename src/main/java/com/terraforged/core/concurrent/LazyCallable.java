@@ -25,66 +25,88 @@
 package com.terraforged.core.concurrent;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
 
+// A value that is created once, by the first thread to ask for it. Other threads asking while it is being
+// created park until it is done. Once done, reads are a single volatile read with no locking.
+//
+// state transitions: NEW -> RUNNING -> DONE | FAILED, or NEW | RUNNING -> CANCELLED
 public abstract class LazyCallable<T> implements Callable<T>, Future<T> {
 
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private static final int NEW = 0;
+    private static final int RUNNING = 1;
+    private static final int DONE = 2;
+    private static final int FAILED = 3;
+    private static final int CANCELLED = 4;
 
-    private T value = null;
+    private static final AtomicIntegerFieldUpdater<LazyCallable> STATE = AtomicIntegerFieldUpdater.newUpdater(
+            LazyCallable.class,
+            "state"
+    );
+
+    private static final AtomicReferenceFieldUpdater<LazyCallable, Waiter> WAITERS = AtomicReferenceFieldUpdater.newUpdater(
+            LazyCallable.class,
+            Waiter.class,
+            "waiters"
+    );
+
+    private volatile int state = NEW;
+    private volatile Waiter waiters = null;
+    private volatile Thread runner = null;
+
+    // the value, or the Throwable if failed. written before the state is published so is visible to any
+    // thread that reads a completed state
+    private Object result = null;
 
     @Override
     public final T call() {
-        // read lock allows us to safely read from the this.value field. it will only block if another thread holds the
-        // write lock (in which case we would want to wait until that has finished computing the value)
-        lock.readLock().lock();
-        T result = this.value;
-        lock.readLock().unlock();
-
-        // if the result is currently null then try to create it
-        if (result == null) {
-            // only one thread can hold the write lock so this blocks until it is obtained. this behaviour is important
-            // as we do not want a second thread to start creating the value if an earlier one is in the process
-            // of doing that
-            lock.writeLock().lock();
-
-            // if another thread had the write lock before us then this.value may have have been computed so read it
-            // into the result variable again
-            result = this.value;
-
-            // if it's still null then actually do the computation and store it for future use
-            if (result == null) {
-                result = create();
-                this.value = result;
-            }
+        int s = state;
+        if (s == DONE) {
+            return value();
+        }
 
-            lock.writeLock().unlock();
+        if (s == NEW && STATE.compareAndSet(this, NEW, RUNNING)) {
+            return run();
         }
 
-        return result;
+        if (runner == Thread.currentThread()) {
+            throw new IllegalStateException("LazyCallable called recursively from its own create()");
+        }
+
+        return report(await(0L));
     }
 
     @Override
     public final boolean cancel(boolean mayInterruptIfRunning) {
-        // not supported
-        return false;
+        while (true) {
+            int s = state;
+            if (s > RUNNING) {
+                return false;
+            }
+
+            if (STATE.compareAndSet(this, s, CANCELLED)) {
+                // cancellation is cooperative, create() is expected to notice via onCancel() or isCancelled()
+                onCancel();
+                releaseWaiters();
+                return true;
+            }
+        }
     }
 
     @Override
     public final boolean isCancelled() {
-        // not supported
-        return false;
+        return state == CANCELLED;
     }
 
     @Override
     public final boolean isDone() {
-        lock.readLock().lock();
-        T result = this.value;
-        lock.readLock().unlock();
-        return result != null;
+        return state > RUNNING;
     }
 
     @Override
@@ -93,10 +115,162 @@ public abstract class LazyCallable<T> implements Callable<T>, Future<T> {
     }
 
     @Override
-    public final T get(long timeout, TimeUnit unit) {
-        // not supported
-        return call();
+    public final T get(long timeout, TimeUnit unit) throws TimeoutException {
+        int s = state;
+        if (s == DONE) {
+            return value();
+        }
+
+        // nobody else will create the value so the caller must
+        if (s == NEW && STATE.compareAndSet(this, NEW, RUNNING)) {
+            return run();
+        }
+
+        s = await(System.nanoTime() + Math.max(1L, unit.toNanos(timeout)));
+        if (s <= RUNNING) {
+            throw new TimeoutException();
+        }
+
+        return report(s);
     }
 
     protected abstract T create();
+
+    protected void onCancel() {
+
+    }
+
+    private T run() {
+        runner = Thread.currentThread();
+        try {
+            T value = create();
+            if (complete(DONE, value)) {
+                return value;
+            }
+            // cancelled while being created so nobody else will see the value
+            dispose(value);
+            throw new CancellationException();
+        } catch (Throwable t) {
+            complete(FAILED, t);
+            throw t;
+        } finally {
+            runner = null;
+        }
+    }
+
+    private boolean complete(int outcome, Object value) {
+        // the result is only written by the runner so it is safe to set before winning the cas. a losing
+        // cas means the state is CANCELLED, which never reads the result
+        result = value;
+        if (STATE.compareAndSet(this, RUNNING, outcome)) {
+            releaseWaiters();
+            return true;
+        }
+        result = null;
+        return false;
+    }
+
+    // waits until the state has completed or the deadline (if non-zero) has passed, returning the last state seen
+    private int await(long deadline) {
+        Waiter node = null;
+        boolean interrupted = false;
+
+        try {
+            while (true) {
+                int s = state;
+                if (s > RUNNING) {
+                    return s;
+                }
+
+                if (node == null) {
+                    node = new Waiter(Thread.currentThread());
+                    continue;
+                }
+
+                if (!node.queued) {
+                    node.next = waiters;
+                    node.queued = WAITERS.compareAndSet(this, node.next, node);
+                    continue;
+                }
+
+                if (deadline == 0L) {
+                    LockSupport.park(this);
+                } else {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0L) {
+                        return state;
+                    }
+                    LockSupport.parkNanos(this, remaining);
+                }
+
+                // interrupts do not abandon the wait as the value may be needed to make progress
+                interrupted |= Thread.interrupted();
+            }
+        } finally {
+            if (node != null) {
+                // stops a late release from unparking a thread that is no longer waiting on this
+                node.thread = null;
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void releaseWaiters() {
+        Waiter node = WAITERS.getAndSet(this, null);
+        while (node != null) {
+            Thread thread = node.thread;
+            if (thread != null) {
+                node.thread = null;
+                LockSupport.unpark(thread);
+            }
+            node = node.next;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T value() {
+        return (T) result;
+    }
+
+    private T report(int s) {
+        if (s == DONE) {
+            return value();
+        }
+
+        if (s == CANCELLED) {
+            throw new CancellationException();
+        }
+
+        Throwable t = (Throwable) result;
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        throw new RuntimeException(t);
+    }
+
+    private static void dispose(Object value) {
+        if (value instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) value).close();
+            } catch (Throwable t) {
+                t.printStackTrace();
+            }
+        }
+    }
+
+    private static class Waiter {
+
+        private volatile Thread thread;
+        private Waiter next;
+        private boolean queued;
+
+        private Waiter(Thread thread) {
+            this.thread = thread;
+        }
+    }
 }
@@ -25,6 +25,7 @@
 package com.terraforged.core.concurrent;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Future;
 import java.util.function.Supplier;
 
@@ -52,9 +53,11 @@ public class LazyFuture<T> extends LazyCallable<T> {
         return new LazyFuture<>(() -> {
             try {
                 return callable.call();
-            } catch (Throwable t) {
-                t.printStackTrace();
-                return null;
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                // reported to whoever gets the future rather than swallowed
+                throw new CompletionException(e);
             }
         });
     }
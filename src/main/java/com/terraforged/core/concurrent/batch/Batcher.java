@@ -26,12 +26,21 @@ package com.terraforged.core.concurrent.batch;
 
 import com.terraforged.core.concurrent.cache.SafeCloseable;
 
+import java.util.concurrent.TimeUnit;
+
 public interface Batcher extends SafeCloseable {
 
     void size(int size);
 
     void submit(Runnable task);
 
+    /**
+     * Sets the maximum time the batch may take (from when it was sized) before close() gives up waiting
+     */
+    default void deadline(long time, TimeUnit unit) {
+
+    }
+
     default void submit(BatchTask task) {
         submit((Runnable) task);
     }
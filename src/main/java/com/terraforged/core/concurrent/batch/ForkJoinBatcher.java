@@ -43,9 +43,9 @@ public class ForkJoinBatcher implements Batcher {
 
     @Override
     public void size(int newSize) {
+        count = 0;
+        size = newSize;
         if (tasks.length < newSize) {
-            count = 0;
-            size = newSize;
             tasks = new ForkJoinTask[newSize];
         }
     }
@@ -53,15 +53,21 @@ public class ForkJoinBatcher implements Batcher {
     @Override
     public void submit(Runnable task) {
         if (count < size) {
-            tasks[count++] = pool.submit(task);
+            if (ForkJoinTask.getPool() == pool) {
+                // fork onto the current worker's deque rather than submitting externally
+                tasks[count++] = ForkJoinTask.adapt(task).fork();
+            } else {
+                tasks[count++] = pool.submit(task);
+            }
         }
     }
 
     @Override
     public void close() {
-        for (int i = 0; i < size; i++) {
+        for (int i = 0; i < count; i++) {
             tasks[i].quietlyJoin();
             tasks[i] = null;
         }
+        count = 0;
     }
 }
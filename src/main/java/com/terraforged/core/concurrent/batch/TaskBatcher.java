@@ -25,21 +25,45 @@
 package com.terraforged.core.concurrent.batch;
 
 import com.terraforged.core.concurrent.Resource;
+import com.terraforged.core.util.metric.Metrics;
 
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 
-public class TaskBatcher implements Batcher, BatchTask.Notifier, Resource<Batcher> {
+// Runs a batch of tasks on the executor while the thread that submitted them helps drain the batch
+// when it is closed. Tasks are claimed from a shared index so each runs exactly once, whichever thread
+// gets to it first, and completion is tracked with a latch so no completion signal can be missed.
+//
+// Each batch's state is held separately so that helpers still running a task from a batch that timed out
+// can't see (or count down) the next one. The task array is only reused once every task in it has finished.
+public class TaskBatcher implements Batcher, Resource<Batcher> {
+
+    private static final Runnable[] EMPTY = {};
 
     private final Executor executor;
-    private final Object lock = new Object();
-    private final AtomicInteger count = new AtomicInteger();
+    private final BooleanSupplier otherWork;
 
-    private int size;
-    private int submitted;
+    private long start;
+    private long deadlineNanos = 0L;
+    private Runnable[] spare = EMPTY;
+    private Batch batch = new Batch(EMPTY, 0);
 
     public TaskBatcher(Executor executor) {
+        this(executor, () -> false);
+    }
+
+    /**
+     * @param otherWork runs one piece of unrelated work (eg another tile's batch) on the calling thread, returning
+     *                  false if there was none. Used to stay busy while this batch's last tasks finish elsewhere
+     */
+    public TaskBatcher(Executor executor, BooleanSupplier otherWork) {
         this.executor = executor;
+        this.otherWork = otherWork;
     }
 
     @Override
@@ -49,49 +73,153 @@ public class TaskBatcher implements Batcher, BatchTask.Notifier, Resource<Batche
 
     @Override
     public boolean isOpen() {
-        return submitted > 0;
+        return batch.submitted.get() > 0;
     }
 
     @Override
-    public void markDone() {
-        if (count.incrementAndGet() >= size) {
-            synchronized (lock) {
-                lock.notify();
-            }
-        }
+    public void size(int size) {
+        Runnable[] tasks = spare.length >= size ? spare : new Runnable[size];
+        this.spare = EMPTY;
+        this.batch = new Batch(tasks, size);
+        this.start = System.nanoTime();
     }
 
     @Override
-    public void size(int size) {
-        this.count.set(0);
-        this.size = size;
-        this.submitted = 0;
+    public void deadline(long time, TimeUnit unit) {
+        this.deadlineNanos = unit.toNanos(time);
     }
 
     @Override
     public void submit(Runnable task) {
-
+        Batch batch = this.batch;
+        int index = batch.submitted.get();
+        if (index < batch.size) {
+            if (task instanceof BatchTask) {
+                // completion is counted by the batcher itself
+                ((BatchTask) task).setNotifier(BatchTask.NONE);
+            }
+            batch.tasks[index] = task;
+            // publishes the task to the helper threads
+            batch.submitted.set(index + 1);
+            executor.execute(batch);
+        }
     }
 
     @Override
     public void submit(BatchTask task) {
-        if (submitted < size) {
-            submitted++;
-            task.setNotifier(this);
-            executor.execute(task);
-        }
+        submit((Runnable) task);
     }
 
     @Override
     public void close() {
-        if (submitted <= 0) {
+        Batch batch = this.batch;
+        int count = batch.submitted.get();
+        if (count <= 0) {
             return;
         }
-        synchronized (lock) {
+
+        // any tasks not yet picked up by the executor are run on this thread
+        batch.drain();
+
+        long idle = System.nanoTime();
+        try {
+            await(batch, count);
+        } finally {
+            long end = System.nanoTime();
+            Metrics.BATCHER.record(end - start);
+            // time spent waiting on other threads after running out of work is the batch imbalance
+            Metrics.BATCHER_WAIT.record(end - idle);
+            // after a timeout helpers may still be reading the array so it's left to them rather than reused
+            if (batch.latch.getCount() == 0) {
+                Arrays.fill(batch.tasks, 0, count, null);
+                spare = batch.tasks;
+            }
+        }
+    }
+
+    private void await(Batch batch, int count) {
+        // tasks that were sized for but never submitted will not count down
+        for (int i = count; i < batch.size; i++) {
+            batch.latch.countDown();
+        }
+
+        while (batch.latch.getCount() > 0 && !isExpired() && otherWork.getAsBoolean()) {
+            // help out elsewhere rather than idle
+        }
+
+        try {
+            if (deadlineNanos <= 0) {
+                batch.latch.await();
+                return;
+            }
+
+            long remaining = deadlineNanos - (System.nanoTime() - start);
+            if (!batch.latch.await(Math.max(0, remaining), TimeUnit.NANOSECONDS)) {
+                // prevent any unclaimed tasks from starting
+                batch.claimed.set(batch.size);
+                throw new RuntimeException(new TimeoutException("Batch did not complete within " + TimeUnit.NANOSECONDS.toMillis(deadlineNanos) + "ms"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private boolean isExpired() {
+        return deadlineNanos > 0 && System.nanoTime() - start >= deadlineNanos;
+    }
+
+    // submitted to the executor once per task so that a prioritized executor can switch to more urgent work
+    // between the tasks of this batch
+    private static class Batch implements Runnable {
+
+        private final int size;
+        private final Runnable[] tasks;
+        private final CountDownLatch latch;
+        private final AtomicInteger claimed = new AtomicInteger();
+        private final AtomicInteger submitted = new AtomicInteger();
+
+        private Batch(Runnable[] tasks, int size) {
+            this.size = size;
+            this.tasks = tasks;
+            this.latch = new CountDownLatch(size);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                int index = claimed.get();
+                if (index >= submitted.get()) {
+                    return;
+                }
+
+                if (claimed.compareAndSet(index, index + 1)) {
+                    run(index);
+                    return;
+                }
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                int index = claimed.get();
+                if (index >= submitted.get()) {
+                    return;
+                }
+
+                if (claimed.compareAndSet(index, index + 1)) {
+                    run(index);
+                }
+            }
+        }
+
+        private void run(int index) {
             try {
-                lock.wait();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+                tasks[index].run();
+            } catch (Throwable t) {
+                t.printStackTrace();
+            } finally {
+                latch.countDown();
             }
         }
     }
@@ -24,10 +24,13 @@
 
 package com.terraforged.core.concurrent.cache;
 
+import com.terraforged.core.concurrent.Disposable;
+import com.terraforged.core.concurrent.thread.Priority;
 import com.terraforged.core.concurrent.thread.ThreadPool;
 import com.terraforged.core.concurrent.thread.ThreadPools;
 
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.function.LongFunction;
 
@@ -36,9 +39,17 @@ public class Cache<V extends ExpiringEntry> implements Runnable {
     private final long expireMS;
     private final long intervalMS;
     private final SynchronizedLongMap<V> map;
+    private final ExpiryWheel<V> wheel;
+    private final ExpiryWheel.Bucket<V> due = new ExpiryWheel.Bucket<>();
+    private final ExpiryWheel.Bucket<V> expired = new ExpiryWheel.Bucket<>();
+    private final AtomicBoolean queued = new AtomicBoolean();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
     private final ThreadPool threadPool = ThreadPools.getUtilPool();
 
     private volatile long timestamp = 0L;
+    private volatile long queuedAt = 0L;
+    private volatile int maxSize = Integer.MAX_VALUE;
+    private volatile Disposable.Listener<V> expireListener = v -> {};
 
     public Cache(long expireTime, long interval, TimeUnit unit) {
         this(200, expireTime, interval, unit);
@@ -48,10 +59,40 @@ public class Cache<V extends ExpiringEntry> implements Runnable {
         this.expireMS = unit.toMillis(expireTime);
         this.intervalMS = unit.toMillis(interval);
         this.map = new SynchronizedLongMap<>(capacity);
+        this.wheel = new ExpiryWheel<>(intervalMS, expireMS);
+    }
+
+    /**
+     * Sets the number of entries above which the least recently scheduled entries are expired early
+     */
+    public void setMaxSize(int maxSize) {
+        this.maxSize = Math.max(0, maxSize);
+    }
+
+    /**
+     * Sets a listener that is notified of each entry that expires, before it is closed
+     */
+    public void setExpireListener(Disposable.Listener<V> listener) {
+        this.expireListener = listener;
+    }
+
+    public int size() {
+        return map.size();
     }
 
     public void remove(long key) {
-        map.remove(key, V::close);
+        V value = map.remove(key);
+        if (value != null) {
+            value.close();
+        }
+    }
+
+    public boolean remove(long key, V value) {
+        if (map.remove(key, value)) {
+            value.close();
+            return true;
+        }
+        return false;
     }
 
     public V get(long key) {
@@ -59,34 +100,111 @@ public class Cache<V extends ExpiringEntry> implements Runnable {
     }
 
     public V computeIfAbsent(long key, LongFunction<V> func) {
-        V v = map.computeIfAbsent(key, func);
+        V v = map.computeIfAbsent(key, k -> schedule(k, func.apply(k)));
         queueUpdate();
         return v;
     }
 
     public <T> T map(long key, LongFunction<V> func, Function<V, T> mapper) {
-        T t = map.map(key, func, mapper);
+        T t = map.map(key, k -> schedule(k, func.apply(k)), mapper);
         queueUpdate();
         return t;
     }
 
+    private V schedule(long key, V value) {
+        wheel.schedule(key, value, value.getTimestamp() + expireMS);
+        return value;
+    }
+
     private void queueUpdate() {
         long now = System.currentTimeMillis();
-        if (now - timestamp > intervalMS) {
+        if (now - timestamp > intervalMS || map.size() > maxSize) {
             timestamp = now;
-            threadPool.submit(this);
+            // background work may be dropped by the pool's admission policy so a sweep that has been queued
+            // for too long is re-submitted. overlapping sweeps are ignored by run()
+            if (queued.compareAndSet(false, true) || now - queuedAt > intervalMS * 4) {
+                queuedAt = now;
+                threadPool.submit(this, Priority.BACKGROUND);
+            }
         }
     }
 
     @Override
     public void run() {
-        final long now = timestamp;
-        map.removeIf(val -> {
-            if (now - val.getTimestamp() > expireMS) {
-                val.close();
-                return true;
+        // a slow sweep may overlap the next scheduled one
+        queued.set(false);
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            final long now = timestamp;
+
+            // only the entries scheduled in the elapsed slots of the wheel are visited
+            wheel.advance(now, due);
+
+            for (int i = 0; i < due.size(); i++) {
+                long key = due.getKey(i);
+                V value = due.getValue(i);
+                long expiry = value.getTimestamp() + expireMS;
+                if (expiry < now) {
+                    // skip stale wheel entries that have since been removed or replaced
+                    if (map.remove(key, value)) {
+                        expired.add(key, value);
+                    }
+                } else if (map.get(key) == value) {
+                    // accessed since it was scheduled so push its deadline back
+                    wheel.schedule(key, value, expiry);
+                }
             }
-            return false;
-        });
+
+            due.clear();
+            evictOverflow();
+
+            // release resources outside of any lock so that lookups are not held up
+            // a listener failing on one entry must not stop the rest from being closed
+            for (int i = 0; i < expired.size(); i++) {
+                V value = expired.getValue(i);
+                try {
+                    expireListener.onDispose(value);
+                } catch (Throwable t) {
+                    t.printStackTrace();
+                }
+                try {
+                    value.close();
+                } catch (Throwable t) {
+                    t.printStackTrace();
+                }
+            }
+        } finally {
+            due.clear();
+            expired.clear();
+            sweeping.set(false);
+        }
+    }
+
+    private void evictOverflow() {
+        int overflow = map.size() - maxSize;
+        while (overflow > 0) {
+            long tick = wheel.pollEarliest(due);
+            if (tick == -1L) {
+                return;
+            }
+
+            for (int i = 0; i < due.size(); i++) {
+                long key = due.getKey(i);
+                V value = due.getValue(i);
+                long expiry = value.getTimestamp() + expireMS;
+                if (overflow > 0 && wheel.getTick(expiry) <= tick) {
+                    if (map.remove(key, value)) {
+                        expired.add(key, value);
+                        overflow--;
+                    }
+                } else if (map.get(key) == value) {
+                    wheel.schedule(key, value, expiry);
+                }
+            }
+            due.clear();
+        }
     }
 }
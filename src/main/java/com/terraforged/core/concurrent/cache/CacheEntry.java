@@ -24,23 +24,52 @@
 
 package com.terraforged.core.concurrent.cache;
 
+import com.terraforged.core.concurrent.LazyCallable;
+import com.terraforged.core.concurrent.thread.Priority;
+import com.terraforged.core.concurrent.thread.PriorityExecutor;
 import com.terraforged.core.concurrent.thread.ThreadPool;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.Future;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 
 public class CacheEntry<T> implements ExpiringEntry {
 
+    private static final CacheEntry<?>[] NONE = {};
+
     private volatile long timestamp;
-    private volatile T value = null;
 
+    private final CompletableFuture<T> future;
+
+    // the task producing the value. lazy tasks (see LazyCallable) only run when a reader drives them
     private final Future<T> task;
 
-    public CacheEntry(Future<T> task) {
+    // the entries that this one is a continuation of
+    private final CacheEntry<?>[] sources;
+
+    // the number of continuations of this entry that have not been cancelled
+    private final AtomicInteger dependents = new AtomicInteger();
+
+    // set once the entry can be reached by other readers (eg held in a cache)
+    private volatile boolean shared = false;
+
+    private CacheEntry(CompletableFuture<T> future, Future<T> task, CacheEntry<?>[] sources) {
         this.task = task;
+        this.future = future;
+        this.sources = sources;
         this.timestamp = System.currentTimeMillis();
+        for (CacheEntry<?> source : sources) {
+            source.dependents.incrementAndGet();
+        }
     }
 
     @Override
@@ -50,6 +79,10 @@ public class CacheEntry<T> implements ExpiringEntry {
 
     @Override
     public void close() {
+        if (!future.isDone() || future.isCompletedExceptionally()) {
+            return;
+        }
+        T value = future.join();
         if (value instanceof AutoCloseable) {
             try {
                 ((AutoCloseable) value).close();
@@ -60,33 +93,218 @@ public class CacheEntry<T> implements ExpiringEntry {
     }
 
     public boolean isDone() {
-        return task.isDone();
+        return future.isDone();
+    }
+
+    public boolean isCancelled() {
+        return future.isCancelled();
+    }
+
+    public CompletableFuture<T> toFuture() {
+        return future;
+    }
+
+    /**
+     * Marks the entry as reachable by other readers (eg held in a cache). Cancelling a continuation then
+     * leaves this entry running for those readers rather than cancelling it too.
+     */
+    public CacheEntry<T> share() {
+        shared = true;
+        return this;
+    }
+
+    /**
+     * Cancels the entry if it has not yet completed and nothing is continuing from it, along with the task
+     * producing its value. Each entry it is a continuation of is cancelled too once no other continuation
+     * depends on it, unless it is shared. Work that is already running stops cooperatively (see Tile#cancel).
+     */
+    public boolean cancel() {
+        if (future.isDone() || dependents.get() > 0) {
+            return false;
+        }
+
+        // only the caller that cancels the future goes on to release the sources
+        if (!future.cancel(false)) {
+            return false;
+        }
+
+        if (task != null) {
+            task.cancel(false);
+        }
+
+        for (CacheEntry<?> source : sources) {
+            if (source.dependents.decrementAndGet() == 0 && !source.shared) {
+                source.cancel();
+            }
+        }
+
+        return true;
     }
 
     public T get() {
         // update each time accessed
         this.timestamp = System.currentTimeMillis();
 
-        if (task instanceof ForkJoinTask) {
-            return value = ((ForkJoinTask<T>) task).join();
+        if (!future.isDone()) {
+            drive(true);
+        }
+
+        return future.join();
+    }
+
+    public T get(long timeout, TimeUnit unit) throws TimeoutException {
+        this.timestamp = System.currentTimeMillis();
+
+        if (!future.isDone()) {
+            // lazy work has no other thread to run it so must still be computed by the caller
+            drive(false);
         }
 
         try {
-            return value = task.get();
-        } catch (Throwable t) {
-            throw new RuntimeException(t);
+            return future.get(timeout, unit);
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Applies the function to this entry's value on the executor once it is available. No thread is
+     * held while waiting for the value. A lazy value (eg a tile promoted from the cold tier) has nothing
+     * else to compute it so is started on the executor.
+     */
     public <V> CacheEntry<V> then(ThreadPool executor, Function<T, V> function) {
-        return supplyAsync(() -> function.apply(get()), executor);
+        CompletableFuture<V> next = future.thenApplyAsync(function, executor.executor());
+        start(executor);
+        return new CacheEntry<>(next, null, new CacheEntry<?>[]{this});
+    }
+
+    /**
+     * Applies the function to the values of this entry and the other (eg a neighbouring tile) on the
+     * executor once both are available. Lazy values are started on the executor, as with then().
+     */
+    public <U, V> CacheEntry<V> thenCombine(CacheEntry<U> other, ThreadPool executor, BiFunction<T, U, V> function) {
+        CompletableFuture<V> next = future.thenCombineAsync(other.future, function, executor.executor());
+        start(executor);
+        other.start(executor);
+        return new CacheEntry<>(next, null, new CacheEntry<?>[]{this, other});
+    }
+
+    // lazy tasks only run when driven, which would otherwise only happen once a reader blocks on get()
+    private void start(ThreadPool executor) {
+        if (isLazy()) {
+            executor.executor().execute(() -> drive(false));
+        }
+    }
+
+    private boolean isLazy() {
+        if (future.isDone()) {
+            return false;
+        }
+        if (task instanceof LazyCallable && !task.isDone()) {
+            return true;
+        }
+        for (CacheEntry<?> source : sources) {
+            if (source.isLazy()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void drive(boolean wait) {
+        for (CacheEntry<?> source : sources) {
+            if (!source.isDone()) {
+                source.drive(wait);
+            }
+        }
+
+        if (task == null || future.isDone()) {
+            return;
+        }
+
+        if (task instanceof LazyCallable || wait) {
+            try {
+                if (task instanceof ForkJoinTask) {
+                    // joining lets the current thread help out if it's a member of the pool
+                    complete(future, ((ForkJoinTask<T>) task).join());
+                } else {
+                    if (task instanceof RunnableFuture) {
+                        // a task still sat in the pool's queue (eg a prefetch) is run by the blocked caller
+                        // rather than waiting for its turn. this is a no-op if a worker has already started it
+                        ((RunnableFuture<T>) task).run();
+                    }
+                    complete(future, task.get());
+                }
+            } catch (ExecutionException e) {
+                future.completeExceptionally(e.getCause());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }
+    }
+
+    private static <T> void complete(CompletableFuture<T> future, T value) {
+        // a value that finished despite the entry being cancelled has no reader so is released straight away
+        if (!future.complete(value) && future.isCancelled() && value instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) value).close();
+            } catch (Throwable e) {
+                e.printStackTrace();
+            }
+        }
     }
 
     public static <T> CacheEntry<T> supply(Future<T> task) {
-        return new CacheEntry<>(task);
+        return new CacheEntry<>(new CompletableFuture<>(), task, NONE);
     }
 
     public static <T> CacheEntry<T> supplyAsync(Callable<T> callable, ThreadPool executor) {
-        return new CacheEntry<>(executor.submit(callable));
+        return supplyAsync(callable, executor, Priority.current());
+    }
+
+    public static <T> CacheEntry<T> supplyAsync(Callable<T> callable, ThreadPool executor, Priority priority) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Future<T> task = executor.submit(new AsyncTask<>(callable, future), priority);
+
+        if (callable instanceof Future) {
+            // the pool task can only be cancelled before it starts so cancellation is passed on to the callable
+            Future<?> inner = (Future<?>) callable;
+            future.whenComplete((value, error) -> {
+                if (error instanceof CancellationException) {
+                    inner.cancel(false);
+                }
+            });
+        }
+
+        return new CacheEntry<>(future, task, NONE);
+    }
+
+    private static class AsyncTask<T> implements Callable<T>, PriorityExecutor.CancelListener {
+
+        private final Callable<T> callable;
+        private final CompletableFuture<T> future;
+
+        private AsyncTask(Callable<T> callable, CompletableFuture<T> future) {
+            this.callable = callable;
+            this.future = future;
+        }
+
+        @Override
+        public T call() throws Exception {
+            try {
+                T value = callable.call();
+                complete(future, value);
+                return value;
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+                throw t;
+            }
+        }
+
+        @Override
+        public void onCancelled() {
+            // eg rejected by the pool's admission policy, in which case nothing else would ever complete it
+            future.cancel(false);
+        }
     }
 }
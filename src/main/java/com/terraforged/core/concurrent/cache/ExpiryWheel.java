@@ -0,0 +1,149 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.core.concurrent.cache;
+
+import java.util.Arrays;
+
+// Hashed timing wheel that tracks when cache entries become due for an expiry check.
+// Each slot covers one sweep interval so a sweep only visits the entries scheduled in the
+// slots that have elapsed since the previous sweep, rather than every entry in the cache.
+public class ExpiryWheel<V> {
+
+    private final long tickMS;
+    private final Bucket<V>[] slots;
+
+    private long tick;
+
+    @SuppressWarnings("unchecked")
+    public ExpiryWheel(long tickMS, long spanMS) {
+        this.tickMS = Math.max(1L, tickMS);
+        int size = (int) Math.max(2L, (spanMS / this.tickMS) + 2L);
+        this.slots = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Bucket<>();
+        }
+        this.tick = System.currentTimeMillis() / this.tickMS;
+    }
+
+    public synchronized void schedule(long key, V value, long deadline) {
+        // entries are never placed in a slot that has already been swept
+        long target = Math.max(tick + 1, deadline / tickMS);
+        slots[(int) (target % slots.length)].add(key, value, deadline);
+    }
+
+    /**
+     * Moves all entries whose deadline has passed into the provided bucket
+     */
+    public synchronized void advance(long now, Bucket<V> due) {
+        long target = now / tickMS;
+        // visiting every slot once is enough to catch all due entries
+        long steps = Math.min(target - tick, slots.length);
+        for (long i = 1; i <= steps; i++) {
+            slots[(int) ((tick + i) % slots.length)].drain(now, due);
+        }
+        tick = Math.max(tick, target);
+    }
+
+    /**
+     * Moves the entries of the earliest non-empty slot into the provided bucket regardless of their deadline
+     *
+     * @return the tick of the drained slot, or -1 if the wheel is empty
+     */
+    public synchronized long pollEarliest(Bucket<V> due) {
+        for (long i = 1; i <= slots.length; i++) {
+            Bucket<V> slot = slots[(int) ((tick + i) % slots.length)];
+            if (slot.size > 0) {
+                slot.drain(Long.MAX_VALUE, due);
+                return tick + i;
+            }
+        }
+        return -1L;
+    }
+
+    public long getTick(long time) {
+        return time / tickMS;
+    }
+
+    public static class Bucket<V> {
+
+        private int size = 0;
+        private long[] keys = new long[16];
+        private long[] deadlines = new long[16];
+        private Object[] values = new Object[16];
+
+        public int size() {
+            return size;
+        }
+
+        public long getKey(int index) {
+            return keys[index];
+        }
+
+        @SuppressWarnings("unchecked")
+        public V getValue(int index) {
+            return (V) values[index];
+        }
+
+        public void clear() {
+            Arrays.fill(values, 0, size, null);
+            size = 0;
+        }
+
+        public void add(long key, V value) {
+            add(key, value, 0L);
+        }
+
+        private void add(long key, V value, long deadline) {
+            if (size == keys.length) {
+                int capacity = size << 1;
+                keys = Arrays.copyOf(keys, capacity);
+                deadlines = Arrays.copyOf(deadlines, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            keys[size] = key;
+            values[size] = value;
+            deadlines[size] = deadline;
+            size++;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void drain(long now, Bucket<V> due) {
+            int retained = 0;
+            for (int i = 0; i < size; i++) {
+                if (deadlines[i] <= now) {
+                    due.add(keys[i], (V) values[i], deadlines[i]);
+                } else {
+                    // deadline lies beyond one revolution of the wheel so keep it for the next pass
+                    keys[retained] = keys[i];
+                    values[retained] = values[i];
+                    deadlines[retained] = deadlines[i];
+                    retained++;
+                }
+            }
+            Arrays.fill(values, retained, size, null);
+            size = retained;
+        }
+    }
+}
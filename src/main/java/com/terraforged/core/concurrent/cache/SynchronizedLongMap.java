@@ -43,9 +43,21 @@ public class SynchronizedLongMap<V> {
         lock = this;
     }
 
-    public void remove(long key) {
+    public int size() {
         synchronized (lock) {
-            map.remove(key);
+            return map.size();
+        }
+    }
+
+    public V remove(long key) {
+        synchronized (lock) {
+            return map.remove(key);
+        }
+    }
+
+    public boolean remove(long key, V value) {
+        synchronized (lock) {
+            return map.remove(key, value);
         }
     }
 
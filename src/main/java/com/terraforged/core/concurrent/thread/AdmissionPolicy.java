@@ -0,0 +1,40 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.core.concurrent.thread;
+
+/**
+ * What a PriorityExecutor does with PREFETCH/BACKGROUND work submitted while its queue of such work is full.
+ * DEMAND work is always admitted.
+ */
+public enum AdmissionPolicy {
+    // the oldest queued task of the least urgent class is cancelled to make room, unless the new task is of a
+    // less urgent class still, in which case the new task is cancelled instead
+    REJECT_OLDEST_PREFETCH,
+    // the submitting thread runs the task itself
+    CALLER_RUNS,
+    // the submitting thread waits for space. pool threads run the task themselves instead, as waiting on the
+    // queue they drain could deadlock
+    BLOCK,
+}
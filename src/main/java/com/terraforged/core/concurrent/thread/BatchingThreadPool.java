@@ -33,18 +33,29 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
+// A single set of workers shared between tile-level tasks and the chunk batches that those tasks split into.
+// Any free worker takes the next piece of batch work if there is one, otherwise the next task, so the pool
+// adapts to bursts of tile requests (all workers run tasks) and to steady state (all workers run batches)
+// without a fixed split. A task blocked on its batch helps run outstanding batch work rather than idling.
 public class BatchingThreadPool implements ThreadPool {
 
+    public static final int DEFAULT_CAPACITY = 256;
+
     private final int size;
     private final boolean keepalive;
-    private final ExecutorService taskExecutor;
-    private final ExecutorService batchExecutor;
+    private final ExecutorService workers;
+    private final PriorityExecutor tasks;
+    private final PriorityExecutor batches;
 
-    private BatchingThreadPool(int taskSize, int batchSize, boolean keepalive) {
+    private BatchingThreadPool(int size, boolean keepalive) {
+        Runnable pull = this::runNext;
+        this.size = size;
         this.keepalive = keepalive;
-        this.size = taskSize + batchSize;
-        this.taskExecutor = Executors.newFixedThreadPool(taskSize, new WorkerFactory("TF-Task"));
-        this.batchExecutor = Executors.newFixedThreadPool(batchSize, new WorkerFactory("TF-Batch"));
+        this.workers = Executors.newFixedThreadPool(size, new WorkerFactory("TF-Pool"));
+        this.tasks = new PriorityExecutor(workers, pull);
+        this.batches = new PriorityExecutor(workers, pull);
+        // batch work belongs to tiles that are already running so is never subject to admission
+        this.tasks.setAdmission(DEFAULT_CAPACITY, AdmissionPolicy.REJECT_OLDEST_PREFETCH);
     }
 
     @Override
@@ -54,12 +65,32 @@ public class BatchingThreadPool implements ThreadPool {
 
     @Override
     public Future<?> submit(Runnable runnable) {
-        return taskExecutor.submit(runnable);
+        return tasks.submit(runnable, Priority.current());
     }
 
     @Override
     public <T> Future<T> submit(Callable<T> callable) {
-        return taskExecutor.submit(callable);
+        return tasks.submit(callable, Priority.current());
+    }
+
+    @Override
+    public Future<?> submit(Runnable runnable, Priority priority) {
+        return tasks.submit(runnable, priority);
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> callable, Priority priority) {
+        return tasks.submit(callable, priority);
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return tasks.getQueueDepth();
+    }
+
+    @Override
+    public void setAdmission(int capacity, AdmissionPolicy policy) {
+        tasks.setAdmission(capacity, policy);
     }
 
     @Override
@@ -69,18 +100,26 @@ public class BatchingThreadPool implements ThreadPool {
 
     @Override
     public void shutdown() {
-        taskExecutor.shutdown();
-        batchExecutor.shutdown();
+        workers.shutdown();
         ThreadPools.shutdown(this);
     }
 
     @Override
     public Resource<Batcher> batcher() {
-        return new TaskBatcher(batchExecutor);
+        // batch work is queued at the priority of the tile being generated so that demand tiles are served
+        // ahead of prefetches between the tasks of a batch
+        return new TaskBatcher(batches.executor(Priority.current()), batches::runNext);
+    }
+
+    private void runNext() {
+        // each submission to either queue schedules one pull, so every queued item is eventually run.
+        // batch work is preferred as it completes tiles that are already in progress
+        if (!batches.runNext()) {
+            tasks.runNext();
+        }
     }
 
     public static ThreadPool of(int size, boolean keepalive) {
-        int tasks = Math.max(1, size / 4);
-        return new BatchingThreadPool(tasks, size - tasks, keepalive);
+        return new BatchingThreadPool(size, keepalive);
     }
 }
@@ -31,6 +31,7 @@ import com.terraforged.core.concurrent.pool.ObjectPool;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.Future;
 
 public class ForkJoinThreadPool implements ThreadPool {
@@ -38,18 +39,22 @@ public class ForkJoinThreadPool implements ThreadPool {
     private final int size;
     private final boolean keepAlive;
     private final ForkJoinPool executor;
+    private final PriorityExecutor tasks;
     private final ObjectPool<Batcher> batchers;
 
     public ForkJoinThreadPool(int size, boolean keepAlive) {
         this.size = size;
         this.keepAlive = keepAlive;
         this.executor = new ForkJoinPool(size, new WorkerFactory.ForkJoin("TF-Fork"), null, true);
+        this.tasks = new PriorityExecutor(executor);
+        this.tasks.setAdmission(BatchingThreadPool.DEFAULT_CAPACITY, AdmissionPolicy.REJECT_OLDEST_PREFETCH);
         this.batchers = new ObjectPool<>(10, () -> new ForkJoinBatcher(executor));
     }
 
     @Override
     public boolean supportsBatching() {
-        return false;
+        // tiles are split recursively via invoke() rather than through batcher()
+        return size > 1;
     }
 
     @Override
@@ -59,12 +64,32 @@ public class ForkJoinThreadPool implements ThreadPool {
 
     @Override
     public Future<?> submit(Runnable runnable) {
-        return executor.submit(runnable);
+        return tasks.submit(runnable, Priority.current());
     }
 
     @Override
     public <T> Future<T> submit(Callable<T> callable) {
-        return executor.submit(callable);
+        return tasks.submit(callable, Priority.current());
+    }
+
+    @Override
+    public Future<?> submit(Runnable runnable, Priority priority) {
+        return tasks.submit(runnable, priority);
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> callable, Priority priority) {
+        return tasks.submit(callable, priority);
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return tasks.getQueueDepth();
+    }
+
+    @Override
+    public void setAdmission(int capacity, AdmissionPolicy policy) {
+        tasks.setAdmission(capacity, policy);
     }
 
     @Override
@@ -78,6 +103,18 @@ public class ForkJoinThreadPool implements ThreadPool {
         ThreadPools.shutdown(this);
     }
 
+    /**
+     * Runs the task to completion. On one of this pool's workers the task (and any subtasks it forks) is
+     * run from the worker's own deque, otherwise the calling thread waits while the pool runs it.
+     */
+    public void invoke(ForkJoinTask<?> task) {
+        if (ForkJoinTask.getPool() == executor) {
+            task.invoke();
+        } else {
+            executor.invoke(task);
+        }
+    }
+
     @Override
     public Resource<Batcher> batcher() {
         return batchers.get();
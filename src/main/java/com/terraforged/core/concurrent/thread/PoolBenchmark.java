@@ -0,0 +1,152 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.core.concurrent.thread;
+
+import com.terraforged.core.concurrent.Resource;
+import com.terraforged.core.concurrent.batch.Batcher;
+import com.terraforged.core.concurrent.batch.TaskBatcher;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+// Runs bursts of synthetic tiles (a serial part, a batch of chunk tasks, then another serial part) through the
+// unified BatchingThreadPool and through the fixed split it replaced, where a quarter of the threads ran tiles
+// and the rest ran batches. Prints tile throughput and latency for pools of 4, 8, 16 & 32 threads. Pools larger
+// than the machine's core count only show scheduling overhead
+public class PoolBenchmark {
+
+    private static final int CHUNKS = 64;
+    private static final int CHUNK_WORK = 20_000;
+    private static final int TILE_WORK = 200_000;
+
+    private static volatile long sink;
+
+    public static void main(String[] args) throws Exception {
+        int tiles = 128;
+        int rounds = 3;
+        int[] sizes = {4, 8, 16, 32};
+
+        System.out.printf("Cores: %s\n", Runtime.getRuntime().availableProcessors());
+        for (int size : sizes) {
+            for (int round = 0; round < rounds; round++) {
+                // the first rounds are warm up
+                boolean print = round == rounds - 1;
+
+                ThreadPool unified = BatchingThreadPool.of(size, true);
+                try {
+                    Result result = burst(tiles, tile -> unified.submit(tile, Priority.DEMAND), unified::batcher);
+                    if (print) {
+                        System.out.printf("Threads: %s, Unified: %s\n", size, result);
+                    }
+                } finally {
+                    unified.shutdown();
+                }
+
+                int taskThreads = Math.max(1, size / 4);
+                ExecutorService tasks = Executors.newFixedThreadPool(taskThreads);
+                ExecutorService batches = Executors.newFixedThreadPool(Math.max(1, size - taskThreads));
+                try {
+                    Result result = burst(tiles, tasks::submit, () -> new TaskBatcher(batches));
+                    if (print) {
+                        System.out.printf("Threads: %s, Split (%s/%s): %s\n", size, taskThreads, size - taskThreads, result);
+                    }
+                } finally {
+                    tasks.shutdown();
+                    batches.shutdown();
+                }
+            }
+        }
+    }
+
+    private static Result burst(int count, Function<Runnable, Future<?>> executor, BatcherFactory batchers) throws Exception {
+        long[] latencies = new long[count];
+        Future<?>[] futures = new Future<?>[count];
+        long start = System.nanoTime();
+
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            long submitted = System.nanoTime();
+            futures[i] = executor.apply(() -> {
+                work(TILE_WORK);
+                try (Resource<Batcher> resource = batchers.get()) {
+                    Batcher batcher = resource.get();
+                    batcher.size(CHUNKS);
+                    for (int c = 0; c < CHUNKS; c++) {
+                        batcher.submit(() -> work(CHUNK_WORK));
+                    }
+                }
+                work(TILE_WORK);
+                latencies[index] = System.nanoTime() - submitted;
+            });
+        }
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        long total = System.nanoTime() - start;
+        return new Result(count, total, latencies);
+    }
+
+    private static void work(int amount) {
+        long hash = 0L;
+        for (int i = 0; i < amount; i++) {
+            hash = hash * 31L + i;
+        }
+        sink += hash;
+    }
+
+    private interface BatcherFactory {
+
+        Resource<Batcher> get();
+    }
+
+    private static class Result {
+
+        private final double throughput;
+        private final double mean;
+        private final double p95;
+
+        private Result(int count, long total, long[] latencies) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            long sum = 0L;
+            for (long latency : sorted) {
+                sum += latency;
+            }
+            this.throughput = count / (total / 1_000_000_000D);
+            this.mean = sum / 1_000_000D / count;
+            this.p95 = sorted[(int) (count * 0.95)] / 1_000_000D;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.1f tiles/s, Mean Latency: %.3fms, P95 Latency: %.3fms", throughput, mean, p95);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.core.concurrent.thread;
+
+import com.terraforged.core.util.metric.Metric;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scheduling classes for work submitted to a ThreadPool, most urgent first
+ */
+public enum Priority {
+    // work that a caller is blocked on (eg a chunk request)
+    DEMAND,
+    // speculative work that is likely to be needed soon (eg neighbouring regions)
+    PREFETCH,
+    // work that can happen whenever there is spare capacity (eg pregeneration, cache sweeps)
+    BACKGROUND,
+    ;
+
+    // threads not running prioritized work are assumed to be a caller waiting on the result
+    private static final ThreadLocal<Priority> CURRENT = ThreadLocal.withInitial(() -> DEMAND);
+
+    private final Metric wait = new Metric();
+    private final AtomicInteger depth = new AtomicInteger();
+
+    /**
+     * The time tasks of this class spend queued before they start
+     */
+    public Metric getWaitMetric() {
+        return wait;
+    }
+
+    /**
+     * The number of tasks of this class currently queued
+     */
+    public int getQueueDepth() {
+        return depth.get();
+    }
+
+    public boolean isHigherThan(Priority other) {
+        return ordinal() < other.ordinal();
+    }
+
+    void onQueued() {
+        depth.incrementAndGet();
+    }
+
+    void onDequeued() {
+        depth.decrementAndGet();
+    }
+
+    void onStarted(long waitNanos) {
+        wait.record(waitNanos);
+    }
+
+    /**
+     * The priority of the work the current thread is running. Work submitted from this thread inherits it
+     */
+    public static Priority current() {
+        return CURRENT.get();
+    }
+
+    static Priority enter(Priority priority) {
+        Priority previous = CURRENT.get();
+        CURRENT.set(priority);
+        return previous;
+    }
+
+    static void exit(Priority previous) {
+        CURRENT.set(previous);
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.core.concurrent.thread;
+
+import com.terraforged.core.concurrent.thread.context.ContextualThread;
+import com.terraforged.core.util.metric.Metrics;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Orders the work handed to an executor by Priority. Each submission queues the task and hands the executor a
+// 'pull' that runs whichever queued task is most urgent at the time a worker becomes free, so any executor
+// (fixed, fork-join etc) can be prioritized without replacing its own queue.
+//
+// Tasks are ranked by their submit time plus 'aging' for each class they are below DEMAND, so a queued
+// BACKGROUND task is eventually served ahead of newer DEMAND work rather than starving.
+//
+// PREFETCH and BACKGROUND work can be bounded (see setAdmission) so that speculative work that nobody reads
+// does not pile up. DEMAND work is never bounded.
+public class PriorityExecutor {
+
+    public static final long DEFAULT_AGING_MS = 2000L;
+
+    /**
+     * Implemented by submitted tasks that need to know if they are cancelled (or rejected by the admission
+     * policy) before they get to run, eg to complete a future that the task would otherwise have completed
+     */
+    public interface CancelListener {
+
+        void onCancelled();
+    }
+
+    private final Executor executor;
+    private final long agingNanos;
+    private final Runnable pull;
+    private final AtomicLong sequence = new AtomicLong();
+    private final PriorityBlockingQueue<Task<?>> queue = new PriorityBlockingQueue<>();
+    // the number of queued non-demand tasks
+    private final AtomicInteger optional = new AtomicInteger();
+    private final Object admissionLock = new Object();
+
+    private volatile int capacity = Integer.MAX_VALUE;
+    private volatile AdmissionPolicy policy = AdmissionPolicy.REJECT_OLDEST_PREFETCH;
+
+    public PriorityExecutor(Executor executor) {
+        this(executor, DEFAULT_AGING_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public PriorityExecutor(Executor executor, long aging, TimeUnit unit) {
+        this.executor = executor;
+        this.pull = this::runNext;
+        this.agingNanos = unit.toNanos(aging);
+    }
+
+    /**
+     * Uses the given pull instead of this executor's own, allowing several PriorityExecutors to share the
+     * workers of one executor (see BatchingThreadPool). The pull must call runNext() on each of them in turn.
+     */
+    public PriorityExecutor(Executor executor, Runnable pull) {
+        this.executor = executor;
+        this.pull = pull;
+        this.agingNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_AGING_MS);
+    }
+
+    /**
+     * Limits the number of queued PREFETCH/BACKGROUND tasks, applying the policy to submissions beyond that
+     */
+    public void setAdmission(int capacity, AdmissionPolicy policy) {
+        this.capacity = Math.max(1, capacity);
+        this.policy = policy;
+        synchronized (admissionLock) {
+            admissionLock.notifyAll();
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public Executor executor(Priority priority) {
+        return task -> submit(task, priority);
+    }
+
+    public Future<?> submit(Runnable runnable, Priority priority) {
+        return submit(new Task<>(runnable, priority));
+    }
+
+    public <T> Future<T> submit(Callable<T> callable, Priority priority) {
+        return submit(new Task<>(callable, priority));
+    }
+
+    private <T> Future<T> submit(Task<T> task) {
+        if (task.priority != Priority.DEMAND && !admit(task)) {
+            return task;
+        }
+
+        task.priority.onQueued();
+        queue.offer(task);
+        executor.execute(pull);
+        return task;
+    }
+
+    /**
+     * Runs the most urgent queued task on the current thread, returning false if there was nothing to run
+     */
+    public boolean runNext() {
+        Task<?> task = queue.poll();
+        if (task == null) {
+            return false;
+        }
+        task.execute(task.priority);
+        return true;
+    }
+
+    private boolean admit(Task<?> task) {
+        while (true) {
+            // claimed with a cas so that concurrent submitters can't overshoot the capacity
+            int count = optional.get();
+            if (count < capacity) {
+                if (optional.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+                continue;
+            }
+
+            AdmissionPolicy policy = this.policy;
+            if (policy == AdmissionPolicy.REJECT_OLDEST_PREFETCH) {
+                Task<?> victim = leastUrgent();
+                if (victim == null) {
+                    break;
+                }
+                if (victim.priority.isHigherThan(task.priority)) {
+                    // the new task is the least urgent of all so is the one turned away
+                    task.queued.set(false);
+                    reject(task);
+                    return false;
+                }
+                if (queue.remove(victim)) {
+                    victim.dequeue();
+                    reject(victim);
+                }
+            } else if (policy == AdmissionPolicy.CALLER_RUNS || Thread.currentThread() instanceof ContextualThread) {
+                // never queued so must not be counted out of the queue when it runs
+                task.queued.set(false);
+                task.execute(task.priority);
+                return false;
+            } else if (!awaitSpace()) {
+                break;
+            }
+        }
+        optional.incrementAndGet();
+        return true;
+    }
+
+    // the least urgent class first, then the earliest submitted
+    private Task<?> leastUrgent() {
+        Task<?> oldest = null;
+        for (Task<?> task : queue) {
+            if (task.priority == Priority.DEMAND) {
+                continue;
+            }
+            if (oldest == null || oldest.priority.isHigherThan(task.priority) || (oldest.priority == task.priority && task.order < oldest.order)) {
+                oldest = task;
+            }
+        }
+        return oldest;
+    }
+
+    // cancelled rather than dropped so that anything waiting on the task is released (see CancelListener)
+    private void reject(Task<?> task) {
+        task.cancel(false);
+        Metrics.TASK_REJECT.record(System.nanoTime() - task.submitted);
+    }
+
+    private boolean awaitSpace() {
+        synchronized (admissionLock) {
+            try {
+                while (optional.get() >= capacity && policy == AdmissionPolicy.BLOCK) {
+                    admissionLock.wait();
+                }
+                return true;
+            } catch (InterruptedException e) {
+                // admit rather than lose the task
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    private void release() {
+        optional.decrementAndGet();
+        if (policy == AdmissionPolicy.BLOCK) {
+            synchronized (admissionLock) {
+                admissionLock.notify();
+            }
+        }
+    }
+
+    private class Task<T> extends FutureTask<T> implements Comparable<Task<?>> {
+
+        private final long rank;
+        private final long order;
+        private final Object action;
+        private final long submitted;
+        private final Priority priority;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final AtomicBoolean queued = new AtomicBoolean(true);
+
+        private Task(Callable<T> callable, Priority priority) {
+            super(callable);
+            this.action = callable;
+            this.priority = priority;
+            this.order = sequence.getAndIncrement();
+            this.submitted = System.nanoTime();
+            this.rank = submitted + priority.ordinal() * agingNanos;
+        }
+
+        private Task(Runnable runnable, Priority priority) {
+            super(runnable, null);
+            this.action = runnable;
+            this.priority = priority;
+            this.order = sequence.getAndIncrement();
+            this.submitted = System.nanoTime();
+            this.rank = submitted + priority.ordinal() * agingNanos;
+        }
+
+        /**
+         * Called directly by a thread that is blocked on the task (see CacheEntry), which runs it straight away
+         * rather than waiting for it to reach the front of the queue. It runs at the caller's priority if that
+         * is higher.
+         */
+        @Override
+        public void run() {
+            Priority current = Priority.current();
+            execute(current.isHigherThan(priority) ? current : priority);
+        }
+
+        private void execute(Priority runAs) {
+            // a task is only ever started once, whether by a pull or by a waiting caller
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+
+            dequeue();
+            priority.onStarted(System.nanoTime() - submitted);
+
+            Priority previous = Priority.enter(runAs);
+            try {
+                super.run();
+            } finally {
+                Priority.exit(previous);
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled() && action instanceof CancelListener) {
+                ((CancelListener) action).onCancelled();
+            }
+        }
+
+        // a task leaves the queue once, by being run or rejected, whichever happens first
+        private void dequeue() {
+            if (queued.compareAndSet(true, false)) {
+                priority.onDequeued();
+                if (priority != Priority.DEMAND) {
+                    release();
+                }
+            }
+        }
+
+        @Override
+        public int compareTo(Task<?> o) {
+            int result = Long.compare(rank, o.rank);
+            if (result == 0) {
+                return Long.compare(order, o.order);
+            }
+            return result;
+        }
+    }
+}
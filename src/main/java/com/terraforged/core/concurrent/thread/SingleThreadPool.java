@@ -30,6 +30,7 @@ import com.terraforged.core.concurrent.batch.Batcher;
 import com.terraforged.core.concurrent.batch.SyncBatcher;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 
 public class SingleThreadPool implements ThreadPool {
@@ -60,4 +61,10 @@ public class SingleThreadPool implements ThreadPool {
     public Resource<Batcher> batcher() {
         return batcher;
     }
+
+    @Override
+    public Executor executor() {
+        // submitted tasks are lazy so continuations are run by whichever thread completes their source
+        return Runnable::run;
+    }
 }
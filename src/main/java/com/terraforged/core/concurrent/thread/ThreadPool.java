@@ -28,6 +28,7 @@ import com.terraforged.core.concurrent.Resource;
 import com.terraforged.core.concurrent.batch.Batcher;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 
 public interface ThreadPool {
@@ -48,5 +49,34 @@ public interface ThreadPool {
 
     <T> Future<T> submit(Callable<T> callable);
 
+    /**
+     * Submits the task under the given scheduling class. Pools that do not prioritize treat this as submit(runnable)
+     */
+    default Future<?> submit(Runnable runnable, Priority priority) {
+        return submit(runnable);
+    }
+
+    default <T> Future<T> submit(Callable<T> callable, Priority priority) {
+        return submit(callable);
+    }
+
     Resource<Batcher> batcher();
+
+    /**
+     * The number of tasks waiting to start
+     */
+    default int getQueueDepth() {
+        return 0;
+    }
+
+    /**
+     * Bounds the number of queued PREFETCH/BACKGROUND tasks. Pools that do not queue work ignore this
+     */
+    default void setAdmission(int capacity, AdmissionPolicy policy) {
+
+    }
+
+    default Executor executor() {
+        return task -> submit(task);
+    }
 }
@@ -29,14 +29,18 @@ import java.lang.ref.WeakReference;
 public class ThreadPools {
 
     private static final Object lock = new Object();
-    private static final ThreadPool util = createInitialPool(2);
+    private static final ThreadPool util = createUnshared(2);
     private static WeakReference<ThreadPool> instance = new WeakReference<>(null);
 
     public static ThreadPool getUtilPool() {
         return util;
     }
 
-    private static ThreadPool createInitialPool(int poolSize) {
+    /**
+     * Creates a pool that is never handed out by create() and does not replace (or shut down) the shared
+     * instance, so it can be shut down by its owner without affecting anyone else
+     */
+    public static ThreadPool createUnshared(int poolSize) {
         if (poolSize == 1) {
             return new SingleThreadPool();
         }
@@ -59,30 +63,59 @@ public class ThreadPools {
     }
 
     public static ThreadPool create(int poolSize, boolean batching, boolean keepAlive) {
+        return create(poolSize, batching, keepAlive, false);
+    }
+
+    public static ThreadPool create(int poolSize, boolean batching, boolean keepAlive, boolean virtual) {
+        // virtual threads are only used where the runtime provides them
+        virtual &= VirtualThreadPool.isSupported();
+
+        Class<? extends ThreadPool> type = getType(poolSize, batching, virtual);
+
+        // keepAlive pools belong to the caller so neither reuse nor replace the shared instance
         synchronized (lock) {
             ThreadPool current = instance.get();
 
-            if (current != null && !current.keepAlive()) {
-                if (poolSize == current.size() && current.supportsBatching() == batching) {
+            if (!keepAlive && current != null && !current.keepAlive()) {
+                // fork-join pools now batch as well, so the kind of pool is compared rather than supportsBatching()
+                if (poolSize == current.size() && current.getClass() == type) {
                     return current;
                 }
                 current.shutdown();
             }
         }
 
-        if (poolSize == 1) {
-            return setAndGet(new SingleThreadPool());
+        if (type == VirtualThreadPool.class) {
+            return setAndGet(new VirtualThreadPool(poolSize, keepAlive), keepAlive);
         }
 
-        if (poolSize < 4 || !batching) {
-            return setAndGet(new ForkJoinThreadPool(poolSize, keepAlive));
+        if (type == SingleThreadPool.class) {
+            return setAndGet(new SingleThreadPool(), keepAlive);
+        }
+
+        if (type == ForkJoinThreadPool.class) {
+            return setAndGet(new ForkJoinThreadPool(poolSize, keepAlive), keepAlive);
         }
 
-        return setAndGet(BatchingThreadPool.of(poolSize, keepAlive));
+        return setAndGet(BatchingThreadPool.of(poolSize, keepAlive), keepAlive);
+    }
+
+    private static Class<? extends ThreadPool> getType(int poolSize, boolean batching, boolean virtual) {
+        if (virtual) {
+            return VirtualThreadPool.class;
+        }
+        if (poolSize == 1) {
+            return SingleThreadPool.class;
+        }
+        if (poolSize < 4 || !batching) {
+            return ForkJoinThreadPool.class;
+        }
+        return BatchingThreadPool.class;
     }
 
-    private static ThreadPool setAndGet(ThreadPool threadPool) {
-        if (!threadPool.keepAlive()) {
+    private static ThreadPool setAndGet(ThreadPool threadPool, boolean keepAlive) {
+        // checked against the request as some pools (eg single threaded) don't record keepAlive themselves
+        if (!keepAlive) {
             synchronized (lock) {
                 instance = new WeakReference<>(threadPool);
             }
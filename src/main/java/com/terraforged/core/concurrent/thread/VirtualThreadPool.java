@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.core.concurrent.thread;
+
+import com.terraforged.core.concurrent.Resource;
+import com.terraforged.core.concurrent.batch.Batcher;
+import com.terraforged.core.concurrent.batch.TaskBatcher;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+// Runs tasks on virtual threads (Java 21+) so that orchestration work that mostly waits on other tasks
+// (eg CacheEntry.get, async persistence) does not tie up platform threads. CPU-bound chunk batches are
+// still executed by a fixed pool of context threads so that parallelism stays bounded and batch work
+// keeps access to its ThreadContext. Virtual threads are not ContextualThreads, so any scratch objects
+// requested from them fall back to the shared pools (see Cell.pooled()).
+//
+// The virtual thread API is looked up reflectively so that the library still builds against older JDKs.
+// Where it is not available tasks fall back to a cached pool of daemon platform threads.
+public class VirtualThreadPool implements ThreadPool {
+
+    private static final ThreadFactory VIRTUAL_FACTORY = createVirtualFactory("TF-Virtual-Worker-");
+
+    private final int size;
+    private final boolean keepAlive;
+    private final ExecutorService taskExecutor;
+    private final ExecutorService batchExecutor;
+
+    public VirtualThreadPool(int size, boolean keepAlive) {
+        this.size = size;
+        this.keepAlive = keepAlive;
+        this.taskExecutor = createTaskExecutor();
+        this.batchExecutor = Executors.newFixedThreadPool(size, new WorkerFactory("TF-Batch"));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean keepAlive() {
+        return keepAlive;
+    }
+
+    @Override
+    public Future<?> submit(Runnable runnable) {
+        return taskExecutor.submit(runnable);
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> callable) {
+        return taskExecutor.submit(callable);
+    }
+
+    @Override
+    public void shutdown() {
+        taskExecutor.shutdown();
+        batchExecutor.shutdown();
+        ThreadPools.shutdown(this);
+    }
+
+    @Override
+    public Resource<Batcher> batcher() {
+        return new TaskBatcher(batchExecutor);
+    }
+
+    public static boolean isSupported() {
+        return VIRTUAL_FACTORY != null;
+    }
+
+    private static ExecutorService createTaskExecutor() {
+        if (VIRTUAL_FACTORY != null) {
+            try {
+                // virtual threads are cheap so are not pooled - Executors.newThreadPerTaskExecutor(factory)
+                Method method = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+                return (ExecutorService) method.invoke(null, VIRTUAL_FACTORY);
+            } catch (Throwable t) {
+                return Executors.newCachedThreadPool(VIRTUAL_FACTORY);
+            }
+        }
+        return Executors.newCachedThreadPool(new WorkerFactory("TF-Task"));
+    }
+
+    private static ThreadFactory createVirtualFactory(String prefix) {
+        try {
+            // Thread.ofVirtual().name(prefix, 1).factory()
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> type = Class.forName("java.lang.Thread$Builder");
+            Method name = type.getMethod("name", String.class, long.class);
+            Method factory = type.getMethod("factory");
+            return (ThreadFactory) factory.invoke(name.invoke(builder, prefix, 1L));
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+}
@@ -29,7 +29,7 @@ import com.terraforged.world.GeneratorContext;
 import com.terraforged.world.heightmap.ControlPoints;
 import com.terraforged.world.terrain.Terrains;
 
-public class BeachDetect implements Filter, Filter.Visitor {
+public class BeachDetect implements Filter, Filter.Visitor, Filter.HeightVisitor {
 
     private final Terrains terrains;
     private final ControlPoints transition;
@@ -44,6 +44,11 @@ public class BeachDetect implements Filter, Filter.Visitor {
         this.grad2 = delta * delta;
     }
 
+    @Override
+    public int getHalo() {
+        return radius;
+    }
+
     @Override
     public void apply(Filterable map, int seedX, int seedZ, int iterations) {
         iterate(map, this);
@@ -65,6 +70,36 @@ public class BeachDetect implements Filter, Filter.Visitor {
         }
     }
 
+    @Override
+    public void visit(float[] heights, int size, Cell cell, int dx, int dz) {
+        if (cell.terrain.isCoast() && cell.continentEdge < transition.beach) {
+            int index = dz * size + dx;
+            float gx = grad(heights, size, index + radius, index - radius, cell.value);
+            float gz = grad(heights, size, index - radius * size, index + radius * size, cell.value);
+            float d2 = (gx * gx + gz * gz);
+            if (d2 < 0.275F) {
+                cell.terrain = terrains.beach;
+            }
+        }
+    }
+
+    private float grad(float[] heights, int size, int a, int b, float def) {
+        int distance = diameter;
+        float valueA = def;
+        float valueB = def;
+        if (a >= 0 && a < size * size) {
+            valueA = heights[a];
+        } else {
+            distance -= radius;
+        }
+        if (b >= 0 && b < size * size) {
+            valueB = heights[b];
+        } else {
+            distance -= radius;
+        }
+        return (valueA - valueB) / distance;
+    }
+
     private float grad(Cell a, Cell b, Cell def) {
         int distance = diameter;
         if (a.isAbsent()) {
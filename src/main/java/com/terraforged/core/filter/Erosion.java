@@ -24,17 +24,31 @@
 
 package com.terraforged.core.filter;
 
+import com.terraforged.core.ThreadContext;
 import com.terraforged.core.cell.Cell;
+import com.terraforged.core.concurrent.Resource;
+import com.terraforged.core.concurrent.batch.Batcher;
+import com.terraforged.core.concurrent.batch.SyncBatcher;
+import com.terraforged.core.concurrent.thread.ThreadPool;
 import com.terraforged.core.settings.FilterSettings;
-import com.terraforged.core.tile.Size;
+import com.terraforged.core.util.metric.Metric;
+import com.terraforged.core.util.metric.Metrics;
 import com.terraforged.n2d.util.NoiseUtil;
 import com.terraforged.world.GeneratorContext;
+import com.terraforged.world.heightmap.Levels;
 
+import java.util.Arrays;
 import java.util.Random;
-import java.util.function.IntFunction;
+import java.util.concurrent.TimeUnit;
 
 public class Erosion implements Filter {
 
+    private static final ThreadContext.Key<Random> RANDOM = ThreadContext.register(Random::new);
+    private static final ThreadContext.Key<Buffers> BUFFERS = ThreadContext.register(Buffers::new);
+    private static final ThreadContext.Key<Buffers> COARSE = ThreadContext.register(Buffers::new);
+    private static final ThreadContext.Key<Sampler> SAMPLER = ThreadContext.register(Sampler::new);
+    private static final SyncBatcher SYNC = new SyncBatcher();
+
     private static final int erosionRadius = 3;
     private static final float inertia = 0.05f; // At zero, water will instantly change direction to flow downhill. At 1, water will never change direction.
     private static final float sedimentCapacityFactor = 4; // Multiplier for how much sediment a droplet can carry
@@ -47,42 +61,197 @@ public class Erosion implements Filter {
     private final float initialSpeed;
     private final float initialWaterVolume;
     private final int maxDropletLifetime;
-    private final int[][] erosionBrushIndices;
-    private final float[][] erosionBrushWeights;
-
-    private final int mapSize;
+    private final boolean parallel;
+    private final boolean importanceSampling;
+    private final int regionSize;
+    private final float waterLevel;
+    private final float unit;
+    private final float minSpeed;
+    private final float minVolume;
+    private final float minHeightChange;
+    private final long stepBudget;
+    private final long timeBudget;
+    private final int downsample;
+    private final int coarseLifetime;
+    private final int coarseRadius;
+    private final float fineIterations;
     private final Modifier modifier;
 
-    public Erosion(int mapSize, FilterSettings.Erosion settings, Modifier modifier) {
-        this.mapSize = mapSize;
+    public Erosion(FilterSettings.Erosion settings, Levels levels, Modifier modifier) {
         this.modifier = modifier;
+        this.waterLevel = levels.water;
+        this.unit = levels.unit;
         this.erodeSpeed = settings.erosionRate;
         this.depositSpeed = settings.depositeRate;
         this.initialSpeed = settings.dropletVelocity;
         this.initialWaterVolume = settings.dropletVolume;
         this.maxDropletLifetime = settings.dropletLifetime;
-        this.erosionBrushIndices = new int[mapSize * mapSize][];
-        this.erosionBrushWeights = new float[mapSize * mapSize][];
-        initBrushes(mapSize, erosionRadius);
+        this.parallel = settings.parallel;
+        this.importanceSampling = settings.importanceSampling;
+        this.minSpeed = settings.minSpeed;
+        this.minVolume = settings.minVolume;
+        this.minHeightChange = settings.minHeightChange * levels.unit;
+        this.stepBudget = settings.stepBudget > 0 ? settings.stepBudget : Long.MAX_VALUE;
+        this.timeBudget = TimeUnit.MILLISECONDS.toNanos(settings.timeBudget);
+        this.downsample = Math.max(1, settings.downsample);
+        // each coarse step covers 'downsample' blocks so the coarse droplets and brush are scaled down to
+        // reach (roughly) as far across the map as those of the full resolution pass
+        this.coarseLifetime = Math.max(1, (maxDropletLifetime + downsample - 1) / downsample);
+        this.coarseRadius = Math.max(1, erosionRadius / downsample);
+        this.fineIterations = settings.fineIterations;
+        // a droplet moves at most one cell per step and then touches cells up to the brush radius (plus the
+        // bilinear neighbour) away, so regions two apart can never touch the same cells
+        this.regionSize = 2 * (maxDropletLifetime + erosionRadius + 2) + 1;
     }
 
-    public int getSize() {
-        return mapSize;
+    @Override
+    public int getHalo() {
+        // how far a droplet can travel and then reach with its brush. the coarse pass is scaled to the same
+        // reach but is rounded up to whole coarse cells, plus one for the interpolation back onto the map
+        int halo = maxDropletLifetime + erosionRadius + 1;
+        if (downsample > 1) {
+            halo = Math.max(halo, (coarseLifetime + coarseRadius + 1) * downsample);
+        }
+        return halo;
     }
 
     @Override
     public void apply(Filterable map, int seedX, int seedZ, int iterations) {
-        applyMain(map, seedX, seedZ, iterations, new Random());
+        apply(map, seedX, seedZ, iterations, null);
+    }
+
+    @Override
+    public void apply(Filterable map, int seedX, int seedZ, int iterations, ThreadPool pool) {
+        try (Metric.Timer timer = Metrics.EROSION.timer()) {
+            long deadline = timeBudget > 0 ? System.nanoTime() + timeBudget : Long.MAX_VALUE;
+            long seed = NoiseUtil.seed(seedX, seedZ);
+            int size = map.getSize().total;
+
+            Buffers buffers = Buffers.acquire(BUFFERS).read(map.getBacking(), size * size, modifier);
+            try {
+                long budget = stepBudget;
+                if (downsample > 1) {
+                    long steps = applyCoarse(buffers, size, seed, iterations / downsample, budget, deadline);
+                    if (budget != Long.MAX_VALUE) {
+                        budget = Math.max(0L, budget - steps);
+                    }
+                    iterations = (int) (iterations * fineIterations);
+                }
+
+                if (parallel) {
+                    applyPartitioned(buffers, size, seed, iterations, budget, deadline, pool);
+                } else {
+                    applyMain(buffers, size, seed, iterations, budget, deadline);
+                }
+
+                buffers.write(map.getBacking(), size * size);
+            } finally {
+                buffers.release();
+            }
+        }
+    }
+
+    private void applyMain(Buffers buffers, int size, long seed, int iterations, long budget, long deadline) {
+        Random random = RANDOM.get();
+        random.setSeed(seed);
+        simulate(buffers, size, random, iterations, maxDropletLifetime, erosionRadius, budget, deadline, 0, 0, size - 1, size - 1);
     }
 
-    private int nextCoord(Size size, Random random) {
-        return random.nextInt(size.total - 1);
+    // Runs a pass over a copy of the map downsampled by the given factor, where each droplet step covers that
+    // many blocks, so that large drainage features are carved with far fewer steps. The changes are then
+    // interpolated back onto the full resolution map ahead of a (smaller) full resolution pass for the detail
+    private long applyCoarse(Buffers buffers, int size, long seed, int iterations, long budget, long deadline) {
+        try (Metric.Timer timer = Metrics.EROSION_COARSE.timer()) {
+            int coarseSize = (size + downsample - 1) / downsample;
+            Buffers coarse = Buffers.acquire(COARSE).downsample(buffers, size, downsample, coarseSize);
+            try {
+                Random random = RANDOM.get();
+                random.setSeed(seed * 31L - 1);
+                long steps = simulate(coarse, coarseSize, random, iterations, coarseLifetime, coarseRadius, budget, deadline, 0, 0, coarseSize - 1, coarseSize - 1);
+                buffers.upsample(coarse, coarseSize, size, downsample);
+                return steps;
+            } finally {
+                coarse.release();
+            }
+        }
+    }
+
+    // The map is divided into square regions wide enough that droplets starting in two regions of the same
+    // checkerboard colour can never touch the same cells (see regionSize). Each of the four colours is a phase
+    // whose regions run in parallel, with each region's droplets seeded from the region itself, so the result
+    // depends only on the seed and never on the number of threads or the order that regions run in.
+    private void applyPartitioned(Buffers buffers, int size, long seed, int iterations, long budget, long deadline, ThreadPool pool) {
+        final int regions = (size - 1 + regionSize - 1) / regionSize;
+        if (regions < 2) {
+            applyMain(buffers, size, seed, iterations, budget, deadline);
+            return;
+        }
+        // the regions of each phase share the calling thread's buffers as they never touch the same cells
+        applyPhases(buffers, size, seed, iterations, budget, deadline, regions, pool);
+    }
+
+    private void applyPhases(Buffers buffers, int size, long seed, int iterations, long stepBudget, long deadline, int regions, ThreadPool pool) {
+        final int span = size - 1;
+
+        // droplets and the step budget are shared out in proportion to each region's area
+        final long area = (long) span * span;
+
+        for (int phase = 0; phase < 4; phase++) {
+            // each phase only gets its share of the time left so that an early phase running over can't starve
+            // the regions of the later ones. time a phase doesn't use carries over to those after it
+            long phaseDeadline = deadline;
+            if (deadline != Long.MAX_VALUE) {
+                long now = System.nanoTime();
+                phaseDeadline = now + Math.max(0L, deadline - now) / (4 - phase);
+            }
+
+            int offsetX = phase & 1;
+            int offsetZ = phase >> 1;
+            int countX = (regions - offsetX + 1) / 2;
+            int countZ = (regions - offsetZ + 1) / 2;
+            if (countX <= 0 || countZ <= 0) {
+                continue;
+            }
+
+            try (Resource<Batcher> resource = pool == null || !pool.supportsBatching() ? SYNC : pool.batcher()) {
+                Batcher batcher = resource.get();
+                batcher.size(countX * countZ);
+                for (int rz = offsetZ; rz < regions; rz += 2) {
+                    for (int rx = offsetX; rx < regions; rx += 2) {
+                        int minX = rx * regionSize;
+                        int minY = rz * regionSize;
+                        int spanX = Math.min(regionSize, span - minX);
+                        int spanY = Math.min(regionSize, span - minY);
+
+                        long before = (long) minY * span + (long) spanY * minX;
+                        long after = before + (long) spanX * spanY;
+                        int droplets = (int) (iterations * after / area - iterations * before / area);
+                        long budget = share(stepBudget, before, after, area);
+                        long regionSeed = seed * 31L + (rz * regions + rx);
+                        long regionDeadline = phaseDeadline;
+
+                        batcher.submit(() -> {
+                            Random random = RANDOM.get();
+                            random.setSeed(regionSeed);
+                            simulate(buffers, size, random, droplets, maxDropletLifetime, erosionRadius, budget, regionDeadline, minX, minY, spanX, spanY);
+                        });
+                    }
+                }
+            }
+        }
     }
 
-    private void applyMain(Filterable map, int seedX, int seedZ, int iterations, Random random) {
-        final int size = map.getSize().total;
-        final Cell[] cells = map.getBacking();
+    private static long share(long total, long before, long after, long area) {
+        if (total == Long.MAX_VALUE) {
+            return total;
+        }
+        return total * after / area - total * before / area;
+    }
 
+    // simulates the given number of droplets, each starting at a random position within the rectangle. once the
+    // step budget or deadline is used up the remaining droplets are skipped, but a droplet in flight is finished
+    private long simulate(Buffers buffers, int size, Random random, int iterations, int maxLifetime, int radius,
+                          long budget, long deadline, int minX, int minY, int spanX, int spanY) {
         float posX;
         float posY;
         float dirX;
@@ -92,9 +261,28 @@ public class Erosion implements Filter {
         float sediment;
         TerrainPos gradient1 = new TerrainPos();
         TerrainPos gradient2 = new TerrainPos();
+        float[] heights = buffers.height;
+        ErosionBrush brush = ErosionBrush.get(size, radius);
+        Sampler sampler = null;
+        long steps = 0L;
+        long saved = 0L;
+        int droplets = 0;
+        float moved = 0F;
+
+        if (importanceSampling) {
+            sampler = SAMPLER.get();
+            // nothing in the rectangle would be changed by a droplet
+            if (!sampler.init(this, buffers, size, minX, minY, spanX, spanY)) {
+                Metrics.EROSION_SKIPPED_SAMPLING.add(iterations);
+                return 0L;
+            }
+        }
+
+        for (; droplets < iterations; droplets++) {
+            if (steps >= budget || (deadline != Long.MAX_VALUE && System.nanoTime() > deadline)) {
+                break;
+            }
 
-        random.setSeed(NoiseUtil.seed(seedX, seedZ));
-        while (iterations-- > 0) {
             dirX = 0;
             dirY = 0;
             sediment = 0;
@@ -105,10 +293,17 @@ public class Erosion implements Filter {
             speed = initialSpeed;
             water = initialWaterVolume;
 
-            posX = nextCoord(map.getSize(), random);
-            posY = nextCoord(map.getSize(), random);
+            if (sampler == null) {
+                posX = minX + random.nextInt(spanX);
+                posY = minY + random.nextInt(spanY);
+            } else {
+                int index = sampler.next(random);
+                posX = minX + index % spanX;
+                posY = minY + index / spanX;
+            }
 
-            for (int lifetime = 0; lifetime < maxDropletLifetime; lifetime++) {
+            for (int lifetime = 0; lifetime < maxLifetime; lifetime++) {
+                steps++;
                 int nodeX = (int) posX;
                 int nodeY = (int) posY;
                 int dropletIndex = nodeY * size + nodeX;
@@ -117,7 +312,7 @@ public class Erosion implements Filter {
                 float cellOffsetY = posY - nodeY;
 
                 // Calculate droplet's height and direction of flow with bilinear interpolation of surrounding heights
-                gradient1.at(cells, size, posX, posY);
+                gradient1.at(heights, size, posX, posY);
 
                 // Update the droplet's direction and position (move position 1 unit regardless of speed)
                 dirX = (dirX * inertia - gradient1.gradientX * (1 - inertia));
@@ -143,7 +338,7 @@ public class Erosion implements Filter {
                 }
 
                 // Find the droplet's new height and calculate the deltaHeight
-                float newHeight = gradient2.at(cells, size, posX, posY).height;
+                float newHeight = gradient2.at(heights, size, posX, posY).height;
                 float deltaHeight = newHeight - gradient1.height;
 
                 // Calculate the droplet's sediment capacity (higher when moving fast down a slope and contains lots of water)
@@ -157,24 +352,25 @@ public class Erosion implements Filter {
 
                     // Add the sediment to the four nodes of the current cell using bilinear interpolation
                     // Deposition is not distributed over a radius (like erosion) so that it can fill small pits
-                    deposit(cells[dropletIndex], amountToDeposit * (1 - cellOffsetX) * (1 - cellOffsetY));
-                    deposit(cells[dropletIndex + 1], amountToDeposit * cellOffsetX * (1 - cellOffsetY));
-                    deposit(cells[dropletIndex + size], amountToDeposit * (1 - cellOffsetX) * cellOffsetY);
-                    deposit(cells[dropletIndex + size + 1], amountToDeposit * cellOffsetX * cellOffsetY);
+                    deposit(buffers, dropletIndex, amountToDeposit * (1 - cellOffsetX) * (1 - cellOffsetY));
+                    deposit(buffers, dropletIndex + 1, amountToDeposit * cellOffsetX * (1 - cellOffsetY));
+                    deposit(buffers, dropletIndex + size, amountToDeposit * (1 - cellOffsetX) * cellOffsetY);
+                    deposit(buffers, dropletIndex + size + 1, amountToDeposit * cellOffsetX * cellOffsetY);
                 } else {
                     // Erode a fraction of the droplet's current carry capacity.
                     // Clamp the erosion to the change in height so that it doesn't dig a hole in the terrain behind the droplet
                     float amountToErode = Math.min((sedimentCapacity - sediment) * erodeSpeed, -deltaHeight);
 
                     // Use erosion brush to erode from all nodes inside the droplet's erosion radius
-                    for (int brushPointIndex = 0; brushPointIndex < erosionBrushIndices[dropletIndex].length; brushPointIndex++) {
-                        int nodeIndex = erosionBrushIndices[dropletIndex][brushPointIndex];
-                        Cell cell = cells[nodeIndex];
-                        float brushWeight = erosionBrushWeights[dropletIndex][brushPointIndex];
+                    int kernel = brush.getKernel(nodeX, nodeY);
+                    for (int point = brush.getStart(kernel), end = brush.getEnd(kernel); point < end; point++) {
+                        int nodeIndex = dropletIndex + brush.getOffset(point);
+                        float brushWeight = brush.getWeight(point);
                         float weighedErodeAmount = amountToErode * brushWeight;
-                        float deltaSediment = (cell.value < weighedErodeAmount) ? cell.value : weighedErodeAmount;
-                        erode(cell, deltaSediment);
+                        float deltaSediment = (heights[nodeIndex] < weighedErodeAmount) ? heights[nodeIndex] : weighedErodeAmount;
+                        erode(buffers, nodeIndex, deltaSediment);
                         sediment += deltaSediment;
+                        moved += deltaSediment;
                     }
                 }
 
@@ -185,68 +381,244 @@ public class Erosion implements Filter {
                 if (Float.isNaN(speed)) {
                     speed = 0;
                 }
+
+                // Stop simulating droplet once it has slowed, dried up or levelled out so much that it no longer has a visible effect
+                if (speed < minSpeed || water < minVolume || Math.abs(deltaHeight) < minHeightChange) {
+                    saved += maxLifetime - lifetime - 1;
+                    break;
+                }
+            }
+        }
+
+        Metrics.EROSION_DROPLETS.add(droplets);
+        Metrics.EROSION_SKIPPED_BUDGET.add(iterations - droplets);
+        Metrics.EROSION_STEPS.add(steps);
+        Metrics.EROSION_STEPS_SAVED.add(saved);
+        Metrics.EROSION_MOVED.add((long) (moved / unit));
+
+        return steps;
+    }
+
+    private void deposit(Buffers buffers, int index, float amount) {
+        if (!buffers.isMasked(index)) {
+            float change = modifier.getValueModifier(buffers.height[index]) * buffers.strength[index] * amount;
+            buffers.height[index] += change;
+            buffers.sediment[index] += change;
+        }
+    }
+
+    private void erode(Buffers buffers, int index, float amount) {
+        if (!buffers.isMasked(index)) {
+            float change = modifier.getValueModifier(buffers.height[index]) * buffers.strength[index] * amount;
+            buffers.height[index] -= change;
+            buffers.erosion[index] -= change;
+        }
+    }
+
+    // the relative likelihood of a droplet starting at the cell. droplets started in water or on masked cells
+    // change nothing useful, and steep, high ground is where a droplet moves the most material
+    private float getSampleWeight(Buffers buffers, int size, int index) {
+        float height = buffers.height[index];
+        if (height <= waterLevel || buffers.isMasked(index)) {
+            return 0F;
+        }
+        float elevation = (height - waterLevel) / unit;
+        float slope = (Math.abs(buffers.height[index + 1] - height) + Math.abs(buffers.height[index + size] - height)) / unit;
+        return elevation * (1F + slope);
+    }
+
+    // cumulative distribution of sample weights over a rectangle of cells, reused per thread
+    private static class Sampler {
+
+        private double[] cumulative = new double[0];
+        private int count;
+
+        private boolean init(Erosion erosion, Buffers buffers, int size, int minX, int minY, int spanX, int spanY) {
+            count = spanX * spanY;
+            if (cumulative.length < count) {
+                cumulative = new double[count];
+            }
+
+            double total = 0;
+            for (int dy = 0, i = 0; dy < spanY; dy++) {
+                int row = (minY + dy) * size + minX;
+                for (int dx = 0; dx < spanX; dx++, i++) {
+                    total += erosion.getSampleWeight(buffers, size, row + dx);
+                    cumulative[i] = total;
+                }
+            }
+
+            return total > 0;
+        }
+
+        // index of the first cell whose cumulative weight exceeds a random point in the total
+        private int next(Random random) {
+            double target = random.nextDouble() * cumulative[count - 1];
+            int low = 0;
+            int high = count - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] > target) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
             }
+            return low;
         }
     }
 
-    private void initBrushes(int size, int radius) {
-        int[] xOffsets = new int[radius * radius * 4];
-        int[] yOffsets = new int[radius * radius * 4];
-        float[] weights = new float[radius * radius * 4];
-        float weightSum = 0;
-        int addIndex = 0;
-
-        for (int i = 0; i < erosionBrushIndices.length; i++) {
-            int centreX = i % size;
-            int centreY = i / size;
-
-            if (centreY <= radius || centreY >= size - radius || centreX <= radius + 1 || centreX >= size - radius) {
-                weightSum = 0;
-                addIndex = 0;
-                for (int y = -radius; y <= radius; y++) {
-                    for (int x = -radius; x <= radius; x++) {
-                        float sqrDst = x * x + y * y;
-                        if (sqrDst < radius * radius) {
-                            int coordX = centreX + x;
-                            int coordY = centreY + y;
-
-                            if (coordX >= 0 && coordX < size && coordY >= 0 && coordY < size) {
-                                float weight = 1 - (float) Math.sqrt(sqrDst) / radius;
-                                weightSum += weight;
-                                weights[addIndex] = weight;
-                                xOffsets[addIndex] = x;
-                                yOffsets[addIndex] = y;
-                                addIndex++;
+    // flat copies of the cell properties that the simulation touches so that the droplet loop works on
+    // contiguous arrays rather than chasing cell references. reused per thread and grown to fit the largest map
+    private static class Buffers {
+
+        private float[] height = new float[0];
+        private float[] erosion = new float[0];
+        private float[] sediment = new float[0];
+        private float[] strength = new float[0];
+        private long[] mask = new long[0];
+        private boolean busy = false;
+
+        // a thread waiting on its batch may pick up another tile's erosion so falls back to a temporary set
+        private static Buffers acquire(ThreadContext.Key<Buffers> key) {
+            Buffers buffers = key.get();
+            if (buffers.busy) {
+                buffers = new Buffers();
+            }
+            buffers.busy = true;
+            return buffers;
+        }
+
+        private void release() {
+            busy = false;
+        }
+
+        // pooled backing arrays may be longer than the map so only the map's cells are read (and written)
+        private Buffers read(Cell[] cells, int length, Modifier modifier) {
+            ensure(length);
+
+            for (int i = 0; i < length; i++) {
+                Cell cell = cells[i];
+                height[i] = cell.value;
+                erosion[i] = cell.erosion;
+                sediment[i] = cell.sediment;
+                if (cell.erosionMask) {
+                    mask[i >>> 6] |= 1L << i;
+                } else {
+                    strength[i] = modifier.getStrengthModifier(cell);
+                }
+            }
+
+            return this;
+        }
+
+        // box-filters each factor x factor block of the source into one cell. erosion and sediment start at
+        // zero so that afterwards they hold just the changes made at this resolution. a block is masked if any
+        // of its cells are so that the coarse pass can't carve into the edge of a masked area
+        private Buffers downsample(Buffers source, int size, int factor, int coarseSize) {
+            ensure(coarseSize * coarseSize);
+
+            for (int cz = 0; cz < coarseSize; cz++) {
+                for (int cx = 0; cx < coarseSize; cx++) {
+                    int index = cz * coarseSize + cx;
+                    int minX = cx * factor;
+                    int minZ = cz * factor;
+                    int maxX = Math.min(size, minX + factor);
+                    int maxZ = Math.min(size, minZ + factor);
+
+                    int count = 0;
+                    boolean masked = false;
+                    float heightSum = 0F;
+                    float strengthSum = 0F;
+                    for (int z = minZ; z < maxZ; z++) {
+                        for (int x = minX; x < maxX; x++) {
+                            int i = z * size + x;
+                            heightSum += source.height[i];
+                            if (source.isMasked(i)) {
+                                masked = true;
+                            } else {
+                                strengthSum += source.strength[i];
                             }
+                            count++;
                         }
                     }
+
+                    height[index] = heightSum / count;
+                    strength[index] = strengthSum / count;
+                    erosion[index] = 0F;
+                    sediment[index] = 0F;
+                    if (masked) {
+                        mask[index >>> 6] |= 1L << index;
+                    }
                 }
             }
 
-            int numEntries = addIndex;
-            erosionBrushIndices[i] = new int[numEntries];
-            erosionBrushWeights[i] = new float[numEntries];
+            return this;
+        }
+
+        // adds the changes made to the coarse buffers, bilinearly interpolated, to the unmasked cells of these
+        private void upsample(Buffers coarse, int coarseSize, int size, int factor) {
+            float centre = (factor - 1) * 0.5F;
+            for (int z = 0; z < size; z++) {
+                float v = Math.min(Math.max((z - centre) / factor, 0F), coarseSize - 1);
+                int z0 = (int) v;
+                int z1 = Math.min(z0 + 1, coarseSize - 1);
+                float tz = v - z0;
+
+                for (int x = 0; x < size; x++) {
+                    int index = z * size + x;
+                    if (isMasked(index)) {
+                        continue;
+                    }
 
-            for (int j = 0; j < numEntries; j++) {
-                erosionBrushIndices[i][j] = (yOffsets[j] + centreY) * size + xOffsets[j] + centreX;
-                erosionBrushWeights[i][j] = weights[j] / weightSum;
+                    float u = Math.min(Math.max((x - centre) / factor, 0F), coarseSize - 1);
+                    int x0 = (int) u;
+                    int x1 = Math.min(x0 + 1, coarseSize - 1);
+                    float tx = u - x0;
+
+                    int i00 = z0 * coarseSize + x0;
+                    int i10 = z0 * coarseSize + x1;
+                    int i01 = z1 * coarseSize + x0;
+                    int i11 = z1 * coarseSize + x1;
+
+                    float eroded = lerp(coarse.erosion, i00, i10, i01, i11, tx, tz);
+                    float deposited = lerp(coarse.sediment, i00, i10, i01, i11, tx, tz);
+                    height[index] += eroded + deposited;
+                    erosion[index] += eroded;
+                    sediment[index] += deposited;
+                }
+            }
+        }
+
+        private void ensure(int length) {
+            if (height.length < length) {
+                height = new float[length];
+                erosion = new float[length];
+                sediment = new float[length];
+                strength = new float[length];
+                mask = new long[(length + 63) >>> 6];
+            } else {
+                Arrays.fill(mask, 0, (length + 63) >>> 6, 0L);
             }
         }
-    }
 
-    private void deposit(Cell cell, float amount) {
-        if (!cell.erosionMask) {
-            float change = modifier.modify(cell, amount);
-            cell.value += change;
-            cell.sediment += change;
+        private static float lerp(float[] values, int i00, int i10, int i01, int i11, float tx, float tz) {
+            float top = values[i00] + (values[i10] - values[i00]) * tx;
+            float bottom = values[i01] + (values[i11] - values[i01]) * tx;
+            return top + (bottom - top) * tz;
         }
-    }
 
-    private void erode(Cell cell, float amount) {
-        if (!cell.erosionMask) {
-            float change = modifier.modify(cell, amount);
-            cell.value -= change;
-            cell.erosion -= change;
+        private void write(Cell[] cells, int length) {
+            for (int i = 0; i < length; i++) {
+                Cell cell = cells[i];
+                cell.value = height[i];
+                cell.erosion = erosion[i];
+                cell.sediment = sediment[i];
+            }
+        }
+
+        private boolean isMasked(int index) {
+            return (mask[index >>> 6] & (1L << index)) != 0;
         }
     }
 
@@ -255,7 +627,7 @@ public class Erosion implements Filter {
         private float gradientX;
         private float gradientY;
 
-        private TerrainPos at(Cell[] nodes, int mapSize, float posX, float posY) {
+        private TerrainPos at(float[] heights, int mapSize, float posX, float posY) {
             int coordX = (int) posX;
             int coordY = (int) posY;
 
@@ -265,10 +637,10 @@ public class Erosion implements Filter {
 
             // Calculate heights of the four nodes of the droplet's cell
             int nodeIndexNW = coordY * mapSize + coordX;
-            float heightNW = nodes[nodeIndexNW].value;
-            float heightNE = nodes[nodeIndexNW + 1].value;
-            float heightSW = nodes[nodeIndexNW + mapSize].value;
-            float heightSE = nodes[nodeIndexNW + mapSize + 1].value;
+            float heightNW = heights[nodeIndexNW];
+            float heightNE = heights[nodeIndexNW + 1];
+            float heightSW = heights[nodeIndexNW + mapSize];
+            float heightSE = heights[nodeIndexNW + mapSize + 1];
 
             // Calculate droplet's direction of flow with bilinear interpolation of height difference along the edges
             this.gradientX = (heightNE - heightNW) * (1 - y) + (heightSE - heightSW) * y;
@@ -285,23 +657,9 @@ public class Erosion implements Filter {
         }
     }
 
-    private static class Factory implements IntFunction<Erosion> {
-
-        private final Modifier modifier;
-        private final FilterSettings.Erosion settings;
-
-        private Factory(GeneratorContext context) {
-            this.settings = context.settings.filters.erosion.copy();
-            this.modifier = Modifier.range(context.levels.ground, context.levels.ground(15));
-        }
-
-        @Override
-        public Erosion apply(int size) {
-            return new Erosion(size, settings, modifier);
-        }
-    }
-
-    public static IntFunction<Erosion> factory(GeneratorContext context) {
-        return new Factory(context);
+    public static Erosion create(GeneratorContext context) {
+        FilterSettings.Erosion settings = context.settings.filters.erosion.copy();
+        Modifier modifier = Modifier.range(context.levels.ground, context.levels.ground(15));
+        return new Erosion(settings, context.levels, modifier);
     }
 }
@@ -0,0 +1,139 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.terraforged.core.filter;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The erosion brushes for a map of a given size. A cell's brush only differs from the interior brush where
+ * it is clipped by the map edges, so one brush is stored per combination of distances to each edge (clamped to
+ * the radius) rather than one per cell
+ */
+public class ErosionBrush {
+
+    private static final Map<Long, ErosionBrush> CACHE = new ConcurrentHashMap<>();
+
+    private final int size;
+    private final int limit;
+    private final int bands;
+    private final int[] starts;
+    private final int[] offsets;
+    private final float[] weights;
+
+    private ErosionBrush(int size, int radius) {
+        // points strictly within the radius so the furthest offset along either axis is radius - 1
+        this.size = size;
+        this.limit = radius - 1;
+        this.bands = radius * radius;
+
+        int kernels = bands * bands;
+        int maxPoints = (2 * radius + 1) * (2 * radius + 1);
+        int[] starts = new int[kernels + 1];
+        int[] offsets = new int[kernels * maxPoints];
+        float[] weights = new float[kernels * maxPoints];
+
+        int[] dx = new int[maxPoints];
+        int[] dy = new int[maxPoints];
+        float[] w = new float[maxPoints];
+
+        int end = 0;
+        for (int kernel = 0; kernel < kernels; kernel++) {
+            int bandX = kernel % bands;
+            int bandY = kernel / bands;
+            int minX = -(bandX / radius);
+            int maxX = bandX % radius;
+            int minY = -(bandY / radius);
+            int maxY = bandY % radius;
+
+            // same visiting order as a per-cell brush so that the normalised weights are identical
+            int count = 0;
+            float weightSum = 0;
+            for (int y = -radius; y <= radius; y++) {
+                for (int x = -radius; x <= radius; x++) {
+                    float sqrDst = x * x + y * y;
+                    if (sqrDst < radius * radius && x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                        float weight = 1 - (float) Math.sqrt(sqrDst) / radius;
+                        weightSum += weight;
+                        w[count] = weight;
+                        dx[count] = x;
+                        dy[count] = y;
+                        count++;
+                    }
+                }
+            }
+
+            starts[kernel] = end;
+            for (int i = 0; i < count; i++, end++) {
+                offsets[end] = dy[i] * size + dx[i];
+                weights[end] = w[i] / weightSum;
+            }
+        }
+        starts[kernels] = end;
+
+        this.starts = starts;
+        this.offsets = Arrays.copyOf(offsets, end);
+        this.weights = Arrays.copyOf(weights, end);
+    }
+
+    /**
+     * Gets the index of the brush used by the cell at the given coordinates
+     */
+    public int getKernel(int x, int y) {
+        return getBand(y) * bands + getBand(x);
+    }
+
+    public int getStart(int kernel) {
+        return starts[kernel];
+    }
+
+    public int getEnd(int kernel) {
+        return starts[kernel + 1];
+    }
+
+    /**
+     * The index offset of a brush point relative to the brush centre
+     */
+    public int getOffset(int point) {
+        return offsets[point];
+    }
+
+    public float getWeight(int point) {
+        return weights[point];
+    }
+
+    private int getBand(int coord) {
+        int below = Math.min(coord, limit);
+        int above = Math.min(size - 1 - coord, limit);
+        return below * (limit + 1) + above;
+    }
+
+    public static ErosionBrush get(int size, int radius) {
+        long key = ((long) size << 32) | radius;
+        return CACHE.computeIfAbsent(key, k -> new ErosionBrush(size, radius));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.core.filter;
+
+import com.terraforged.core.settings.FilterSettings;
+import com.terraforged.core.settings.Settings;
+import com.terraforged.world.heightmap.Levels;
+
+// Compares importance-sampled against uniform droplet placement at the same droplet counts. Quality is how much
+// of the way from the uneroded map to a reference (uniform placement with many more droplets) a run gets:
+// 1 - rms(result - reference) / rms(input - reference), reported per millisecond of erosion time
+public class ErosionSamplingComparison {
+
+    public static void main(String[] args) {
+        int size = 512;
+        int runs = 3;
+        int[] droplets = {5000, 15000, 30000, 50000};
+
+        Settings settings = new Settings();
+        Levels levels = new Levels(settings.world);
+        SampleMap map = new SampleMap(size, 789, levels);
+        float[] input = map.copyHeights();
+
+        FilterSettings.Erosion reference = settings.filters.erosion.copy();
+        erosion(reference, levels).apply(map.reset(), 0, 0, droplets[droplets.length - 1] * 4);
+        float[] target = map.copyHeights();
+        double baseline = rms(input, target);
+
+        for (int iterations : droplets) {
+            for (boolean importance : new boolean[]{false, true}) {
+                FilterSettings.Erosion config = settings.filters.erosion.copy();
+                config.importanceSampling = importance;
+                Erosion erosion = erosion(config, levels);
+
+                // warm up
+                erosion.apply(map.reset(), 0, 0, iterations);
+
+                long time = 0L;
+                for (int i = 0; i < runs; i++) {
+                    map.reset();
+                    long start = System.nanoTime();
+                    erosion.apply(map, 0, 0, iterations);
+                    time += System.nanoTime() - start;
+                }
+
+                double ms = time / 1000000D / runs;
+                double quality = 1D - rms(map.copyHeights(), target) / baseline;
+                System.out.printf("Droplets: %s, Sampling: %s, Time: %.3fms, Quality: %.4f, Quality/ms: %.6f\n",
+                        iterations, importance ? "importance" : "uniform", ms, quality, quality / ms);
+            }
+        }
+    }
+
+    private static Erosion erosion(FilterSettings.Erosion settings, Levels levels) {
+        return new Erosion(settings, levels, Modifier.range(levels.ground, levels.ground(15)));
+    }
+
+    private static double rms(float[] a, float[] b) {
+        double sum = 0D;
+        for (int i = 0; i < a.length; i++) {
+            double d = a[i] - b[i];
+            sum += d * d;
+        }
+        return Math.sqrt(sum / a.length);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.core.filter;
+
+import com.terraforged.core.concurrent.thread.ThreadPool;
+import com.terraforged.core.concurrent.thread.ThreadPools;
+import com.terraforged.core.settings.FilterSettings;
+import com.terraforged.core.settings.Settings;
+import com.terraforged.world.heightmap.Levels;
+
+import java.util.Arrays;
+
+// Times partitioned erosion on pools of 1, 2, 4.. up to the number of cores against the serial erosion of the
+// same map, and checks that every pool size produces exactly the same heights
+public class ErosionScaling {
+
+    public static void main(String[] args) {
+        int size = 512;
+        int runs = 5;
+        int iterations = 50000;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        Settings settings = new Settings();
+        Levels levels = new Levels(settings.world);
+        SampleMap map = new SampleMap(size, 321, levels);
+
+        double serial = time(erosion(settings, levels, false), map, null, iterations, runs);
+        System.out.printf("Serial: %.3fms\n", serial);
+
+        Erosion parallel = erosion(settings, levels, true);
+        float[] expected = null;
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            ThreadPool pool = ThreadPools.create(threads, true, true);
+            try {
+                double ms = time(parallel, map, pool, iterations, runs);
+                float[] heights = map.copyHeights();
+                if (expected == null) {
+                    expected = heights;
+                }
+                System.out.printf("Threads: %s, Time: %.3fms, Speedup: %.2fx, Deterministic: %s\n",
+                        threads, ms, serial / ms, Arrays.equals(expected, heights));
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static Erosion erosion(Settings settings, Levels levels, boolean parallel) {
+        FilterSettings.Erosion config = settings.filters.erosion.copy();
+        config.parallel = parallel;
+        return new Erosion(config, levels, Modifier.range(levels.ground, levels.ground(15)));
+    }
+
+    // average time in milliseconds, leaving the map holding the last run's result
+    private static double time(Erosion erosion, SampleMap map, ThreadPool pool, int iterations, int runs) {
+        erosion.apply(map.reset(), 0, 0, iterations, pool);
+
+        long time = 0L;
+        for (int i = 0; i < runs; i++) {
+            map.reset();
+            long start = System.nanoTime();
+            erosion.apply(map, 0, 0, iterations, pool);
+            time += System.nanoTime() - start;
+        }
+
+        return time / 1000000D / runs;
+    }
+}
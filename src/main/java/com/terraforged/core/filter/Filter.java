@@ -25,11 +25,28 @@
 package com.terraforged.core.filter;
 
 import com.terraforged.core.cell.Cell;
+import com.terraforged.core.concurrent.thread.ThreadPool;
 
 public interface Filter {
 
     void apply(Filterable map, int seedX, int seedZ, int iterations);
 
+    /**
+     * Applies the filter, optionally spreading the work over the pool's batcher. The pool may be null
+     */
+    default void apply(Filterable map, int seedX, int seedZ, int iterations, ThreadPool pool) {
+        apply(map, seedX, seedZ, iterations);
+    }
+
+    /**
+     * The distance in blocks beyond a cell that the filter reads from (or writes to) when processing it. A map
+     * needs a border at least this wide for the filter's results in the map's interior to match those of
+     * neighbouring maps
+     */
+    default int getHalo() {
+        return 0;
+    }
+
     default void iterate(Filterable map, Visitor visitor) {
         for (int dz = 0; dz < map.getSize().total; dz++) {
             for (int dx = 0; dx < map.getSize().total; dx++) {
@@ -43,4 +60,13 @@ public interface Filter {
 
         void visit(Filterable cellMap, Cell cell, int dx, int dz);
     }
+
+    /**
+     * A per-cell filter that only reads neighbour heights (from a flat z * size + x copy of the map) and
+     * doesn't change any heights itself, so that it can share a single sweep with other height visitors
+     */
+    interface HeightVisitor {
+
+        void visit(float[] heights, int size, Cell cell, int dx, int dz);
+    }
 }
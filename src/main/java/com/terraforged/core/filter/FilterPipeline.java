@@ -0,0 +1,273 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.terraforged.core.filter;
+
+import com.terraforged.core.concurrent.thread.ThreadPool;
+import com.terraforged.core.tile.Tile;
+import com.terraforged.core.util.metric.Metric;
+import com.terraforged.core.util.metric.Metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * An ordered list of filter stages applied to each tile. Each stage declares the cell fields it reads and
+ * writes, its halo and how it spreads its work, which lets adjacent height visitors be fused into a single
+ * sweep and lets the pipeline work out the border that tiles need
+ */
+public class FilterPipeline {
+
+    public enum Field {
+        VALUE,
+        EROSION,
+        SEDIMENT,
+        GRADIENT,
+        TERRAIN,
+        WATER_LEVEL,
+        // generator outputs that filters only read (erosion & river masks, region & continent edges)
+        MASKS,
+        ;
+    }
+
+    public enum Parallelism {
+        // runs on the calling thread
+        SEQUENTIAL,
+        // splits bands of rows over the pool
+        ROWS,
+        // splits the tile into independent regions over the pool
+        TILE,
+        ;
+    }
+
+    private final List<Stage> stages;
+
+    private FilterPipeline(List<Stage> stages) {
+        this.stages = Collections.unmodifiableList(stages);
+    }
+
+    public List<Stage> getStages() {
+        return stages;
+    }
+
+    /**
+     * The border in blocks that a tile needs for its interior to be filtered consistently with its neighbours.
+     * The reaches of exact stages add up as each reads the results of the last. Approximate (stochastic) stages
+     * only bound how far their effects travel, so the larger of the two is used
+     */
+    public int getHalo() {
+        int exact = 0;
+        int approximate = 0;
+        for (Stage stage : stages) {
+            if (stage.approximate) {
+                approximate = Math.max(approximate, stage.getHalo());
+            } else {
+                exact += stage.getHalo();
+            }
+        }
+        return Math.max(exact, approximate);
+    }
+
+    public void apply(Tile tile, boolean optionalFilters, ThreadPool pool) {
+        Filterable map = tile.filterable();
+        for (Stage stage : stages) {
+            if (stage.optional && !optionalFilters) {
+                continue;
+            }
+
+            // an obsolete tile is abandoned between stages
+            if (tile.isCancelled()) {
+                return;
+            }
+
+            try (Metric.Timer timer = stage.metric.timer()) {
+                ThreadPool stagePool = stage.parallelism == Parallelism.SEQUENTIAL ? null : pool;
+                stage.filter.apply(map, tile.getRegionX(), tile.getRegionZ(), stage.iterations, stagePool);
+            }
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Stage {
+
+        private final String name;
+        private final Filter filter;
+        private final EnumSet<Field> reads = EnumSet.noneOf(Field.class);
+        private final EnumSet<Field> writes = EnumSet.noneOf(Field.class);
+        private int iterations = 1;
+        private boolean optional = false;
+        private boolean approximate = false;
+        private Parallelism parallelism = Parallelism.SEQUENTIAL;
+        private Metric metric;
+
+        public Stage(String name, Filter filter) {
+            this.name = name;
+            this.filter = filter;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Filter getFilter() {
+            return filter;
+        }
+
+        public int getHalo() {
+            return filter.getHalo();
+        }
+
+        public Parallelism getParallelism() {
+            return parallelism;
+        }
+
+        public Stage reads(Field... fields) {
+            Collections.addAll(reads, fields);
+            return this;
+        }
+
+        public Stage writes(Field... fields) {
+            Collections.addAll(writes, fields);
+            return this;
+        }
+
+        public Stage iterations(int iterations) {
+            this.iterations = iterations;
+            return this;
+        }
+
+        /**
+         * Marks the stage as one that is skipped when a tile is generated without its optional filters
+         */
+        public Stage optional() {
+            this.optional = true;
+            return this;
+        }
+
+        /**
+         * Marks the stage as stochastic (or tile-global), so its halo is a bound on how far its effects travel, or
+         * a best effort, rather than exact
+         */
+        public Stage approximate() {
+            this.approximate = true;
+            return this;
+        }
+
+        public Stage parallel(Parallelism parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        // height visitors that run once per tile and don't change heights can share a sweep so long as
+        // neither writes a field that the other reads
+        private boolean canFuse(Stage other) {
+            return filter instanceof Filter.HeightVisitor
+                    && other.filter instanceof Filter.HeightVisitor
+                    && iterations == 1 && other.iterations == 1
+                    && optional == other.optional
+                    && approximate == other.approximate
+                    && !writes.contains(Field.VALUE) && !other.writes.contains(Field.VALUE)
+                    && Collections.disjoint(writes, other.reads)
+                    && Collections.disjoint(other.writes, reads);
+        }
+
+        private static Stage fuse(List<Stage> group) {
+            if (group.size() == 1) {
+                return group.get(0);
+            }
+
+            int halo = 0;
+            StringBuilder name = new StringBuilder();
+            Parallelism parallelism = Parallelism.ROWS;
+            Filter.HeightVisitor[] visitors = new Filter.HeightVisitor[group.size()];
+            for (int i = 0; i < visitors.length; i++) {
+                Stage stage = group.get(i);
+                // all visitors read the same unmodified heights so their reaches don't add up
+                halo = Math.max(halo, stage.getHalo());
+                visitors[i] = (Filter.HeightVisitor) stage.filter;
+                name.append(i > 0 ? "+" : "").append(stage.name);
+                if (stage.parallelism == Parallelism.SEQUENTIAL) {
+                    parallelism = Parallelism.SEQUENTIAL;
+                }
+            }
+
+            Stage first = group.get(0);
+            Stage fused = new Stage(name.toString(), new HeightVisitorPass(halo, visitors)).parallel(parallelism);
+            fused.optional = first.optional;
+            fused.approximate = first.approximate;
+            for (Stage stage : group) {
+                fused.reads.addAll(stage.reads);
+                fused.writes.addAll(stage.writes);
+            }
+            return fused;
+        }
+    }
+
+    public static class Builder {
+
+        private final List<Stage> stages = new ArrayList<>();
+
+        public Builder add(Stage stage) {
+            stages.add(stage);
+            return this;
+        }
+
+        public FilterPipeline build() {
+            List<Stage> result = new ArrayList<>(stages.size());
+            List<Stage> group = new ArrayList<>();
+            for (Stage stage : stages) {
+                if (!group.isEmpty() && !canJoin(group, stage)) {
+                    result.add(Stage.fuse(group));
+                    group.clear();
+                }
+                group.add(stage);
+            }
+
+            if (!group.isEmpty()) {
+                result.add(Stage.fuse(group));
+            }
+
+            for (Stage stage : result) {
+                stage.metric = Metrics.stage(stage.name);
+            }
+
+            return new FilterPipeline(result);
+        }
+
+        private static boolean canJoin(List<Stage> group, Stage stage) {
+            for (Stage member : group) {
+                if (!member.canFuse(stage)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
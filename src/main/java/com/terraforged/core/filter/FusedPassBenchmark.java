@@ -0,0 +1,125 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.core.filter;
+
+import com.terraforged.core.cell.Cell;
+import com.terraforged.core.concurrent.thread.ThreadPool;
+import com.terraforged.core.concurrent.thread.ThreadPools;
+import com.terraforged.core.settings.Settings;
+import com.terraforged.world.GeneratorContext;
+import com.terraforged.world.terrain.Terrains;
+
+// Times the finalisation of a tile with Steepness & BeachDetect run as two separate passes (as before they
+// were fused) against the fused HeightVisitorPass, serially and on a pool, and checks they give the same cells
+public class FusedPassBenchmark {
+
+    public static void main(String[] args) {
+        int size = 512;
+        int warmup = 10;
+        int runs = 50;
+
+        Settings settings = new Settings();
+        GeneratorContext context = GeneratorContext.createNoCache(Terrains.create(settings), settings);
+        SampleMap map = new SampleMap(size, 654, context.levels);
+
+        Steepness steepness = new Steepness(1, 10F, context.terrain, context.levels);
+        BeachDetect beach = new BeachDetect(context);
+        HeightVisitorPass fused = new HeightVisitorPass(Math.max(steepness.getHalo(), beach.getHalo()), steepness, beach);
+        ThreadPool pool = ThreadPools.create(ThreadPools.defaultPoolSize(), true, true);
+
+        try {
+            double separate = time(map, context, warmup, runs, () -> {
+                steepness.apply(map, 0, 0, 1);
+                beach.apply(map, 0, 0, 1);
+            });
+            Cell[] expected = copy(map.getBacking());
+
+            double serial = time(map, context, warmup, runs, () -> fused.apply(map, 0, 0, 1, null));
+            boolean serialMatches = matches(expected, map.getBacking());
+
+            double pooled = time(map, context, warmup, runs, () -> fused.apply(map, 0, 0, 1, pool));
+            boolean pooledMatches = matches(expected, map.getBacking());
+
+            System.out.printf("Separate: %.3fms\n", separate);
+            System.out.printf("Fused: %.3fms (%.2fx), Matches: %s\n", serial, separate / serial, serialMatches);
+            System.out.printf("Fused on %s threads: %.3fms (%.2fx), Matches: %s\n", pool.size(), pooled, separate / pooled, pooledMatches);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // average time in milliseconds, leaving the map holding the last run's result
+    private static double time(SampleMap map, GeneratorContext context, int warmup, int runs, Runnable pass) {
+        for (int i = 0; i < warmup; i++) {
+            prepare(map, context);
+            pass.run();
+        }
+
+        long time = 0L;
+        for (int i = 0; i < runs; i++) {
+            prepare(map, context);
+            long start = System.nanoTime();
+            pass.run();
+            time += System.nanoTime() - start;
+        }
+
+        return time / 1000000D / runs;
+    }
+
+    // marks the cells just above the water as coast so that BeachDetect has cells to classify
+    private static void prepare(SampleMap map, GeneratorContext context) {
+        map.reset();
+        float coast = context.levels.water(6);
+        for (Cell cell : map.getBacking()) {
+            cell.gradient = 0F;
+            cell.continentEdge = 0F;
+            if (cell.value <= context.levels.water) {
+                cell.terrain = context.terrain.ocean;
+            } else if (cell.value < coast) {
+                cell.terrain = context.terrain.coast;
+            } else {
+                cell.terrain = context.terrain.steppe;
+            }
+        }
+    }
+
+    private static Cell[] copy(Cell[] cells) {
+        Cell[] copy = new Cell[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            copy[i] = new Cell();
+            copy[i].copy(cells[i]);
+        }
+        return copy;
+    }
+
+    private static boolean matches(Cell[] expected, Cell[] cells) {
+        for (int i = 0; i < cells.length; i++) {
+            if (expected[i].gradient != cells[i].gradient || expected[i].terrain != cells[i].terrain) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.terraforged.core.filter;
+
+import com.terraforged.core.cell.Cell;
+import com.terraforged.core.concurrent.Resource;
+import com.terraforged.core.concurrent.batch.Batcher;
+import com.terraforged.core.concurrent.batch.SyncBatcher;
+import com.terraforged.core.concurrent.pool.ObjectPool;
+import com.terraforged.core.concurrent.thread.ThreadPool;
+
+/**
+ * Runs a number of height visitors (such as Steepness and BeachDetect) together in a single sweep over the map.
+ * None of them change cell heights so all read neighbours from one flat copy of the heights, and bands of rows
+ * can run in parallel
+ */
+public class HeightVisitorPass implements Filter {
+
+    private static final int ROWS_PER_TASK = 16;
+    private static final SyncBatcher SYNC = new SyncBatcher();
+    private static final ObjectPool<Heights> HEIGHTS = new ObjectPool<>(8, Heights::new);
+
+    private final int halo;
+    private final Filter.HeightVisitor[] visitors;
+
+    public HeightVisitorPass(int halo, Filter.HeightVisitor... visitors) {
+        this.halo = halo;
+        this.visitors = visitors;
+    }
+
+    @Override
+    public int getHalo() {
+        return halo;
+    }
+
+    @Override
+    public void apply(Filterable map, int seedX, int seedZ, int iterations) {
+        apply(map, seedX, seedZ, iterations, null);
+    }
+
+    @Override
+    public void apply(Filterable map, int seedX, int seedZ, int iterations, ThreadPool pool) {
+        Cell[] cells = map.getBacking();
+        int size = map.getSize().total;
+        int tasks = (size + ROWS_PER_TASK - 1) / ROWS_PER_TASK;
+
+        try (Resource<Heights> heights = HEIGHTS.get()) {
+            float[] values = heights.get().read(cells, size * size);
+            try (Resource<Batcher> resource = pool == null || !pool.supportsBatching() || tasks < 2 ? SYNC : pool.batcher()) {
+                Batcher batcher = resource.get();
+                batcher.size(tasks);
+                for (int z = 0; z < size; z += ROWS_PER_TASK) {
+                    int from = z;
+                    int to = Math.min(size, z + ROWS_PER_TASK);
+                    batcher.submit(() -> visitRows(cells, values, size, from, to));
+                }
+            }
+        }
+    }
+
+    private void visitRows(Cell[] cells, float[] heights, int size, int minZ, int maxZ) {
+        for (int z = minZ; z < maxZ; z++) {
+            int row = z * size;
+            for (int x = 0; x < size; x++) {
+                Cell cell = cells[row + x];
+                for (Filter.HeightVisitor visitor : visitors) {
+                    visitor.visit(heights, size, cell, x, z);
+                }
+            }
+        }
+    }
+
+    private static class Heights {
+
+        private float[] values = new float[0];
+
+        // pooled backing arrays may be longer than the map so only the map's cells are copied
+        private float[] read(Cell[] cells, int length) {
+            if (values.length < length) {
+                values = new float[length];
+            }
+            for (int i = 0; i < length; i++) {
+                values[i] = cells[i].value;
+            }
+            return values;
+        }
+    }
+}
@@ -32,6 +32,13 @@ public interface Modifier {
     float getValueModifier(float value);
 
     default float modify(Cell cell, float value) {
+        return getValueModifier(cell.value) * getStrengthModifier(cell) * value;
+    }
+
+    /**
+     * The part of the modifier that depends on the cell's terrain and river properties but not on its height
+     */
+    default float getStrengthModifier(Cell cell) {
         float strengthModifier = 1F;
 
         // reduce erosion strength towards the edge of terrain regions (that have an erosion modifier)
@@ -45,7 +52,7 @@ public interface Modifier {
             strengthModifier *= NoiseUtil.map(cell.riverMask, 0.002F, 0.1F, 0.098F);
         }
 
-        return getValueModifier(cell.value) * strengthModifier * value;
+        return strengthModifier;
     }
 
     default Modifier invert() {
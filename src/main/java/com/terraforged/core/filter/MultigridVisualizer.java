@@ -0,0 +1,94 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.core.filter;
+
+import com.terraforged.core.settings.FilterSettings;
+import com.terraforged.core.settings.Settings;
+import com.terraforged.world.heightmap.Levels;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+// Erodes the same map at full resolution only and with a 2x & 4x coarse pass first, printing the time each
+// takes. Shows each result above the difference from the full resolution result (red = lower, blue = higher)
+public class MultigridVisualizer {
+
+    public static void main(String[] args) {
+        int size = 384;
+        int iterations = 30000;
+        int[] factors = {1, 2, 4};
+
+        Settings settings = new Settings();
+        Levels levels = new Levels(settings.world);
+        SampleMap map = new SampleMap(size, 456, levels);
+
+        BufferedImage image = new BufferedImage(size * factors.length, size * 2, BufferedImage.TYPE_INT_RGB);
+        Graphics graphics = image.getGraphics();
+        float[] full = null;
+
+        for (int f = 0; f < factors.length; f++) {
+            FilterSettings.Erosion config = settings.filters.erosion.copy();
+            config.downsample = factors[f];
+            Erosion erosion = new Erosion(config, levels, Modifier.range(levels.ground, levels.ground(15)));
+
+            // warm up
+            erosion.apply(map.reset(), 0, 0, iterations);
+
+            map.reset();
+            long start = System.nanoTime();
+            erosion.apply(map, 0, 0, iterations);
+            double ms = (System.nanoTime() - start) / 1000000D;
+
+            float[] heights = map.copyHeights();
+            if (full == null) {
+                full = heights;
+            }
+
+            double diff = 0D;
+            for (int i = 0; i < heights.length; i++) {
+                float d = heights[i] - full[i];
+                diff += Math.abs(d);
+                // scaled up so that differences of a block or two are visible
+                float alpha = Math.min(1F, Math.abs(d) / levels.unit / 4F);
+                int x = f * size + (i % size);
+                int z = size + (i / size);
+                image.setRGB(x, z, Color.HSBtoRGB(d < 0 ? 0F : 0.66F, alpha, alpha));
+            }
+
+            graphics.drawImage(map.render(), f * size, 0, null);
+            System.out.printf("Downsample: %sx, Time: %.3fms, Mean Difference: %.3f blocks\n",
+                    factors[f], ms, diff / heights.length / levels.unit);
+        }
+
+        JFrame frame = new JFrame();
+        frame.add(new JLabel(new ImageIcon(image)));
+        frame.setVisible(true);
+        frame.pack();
+        frame.setResizable(false);
+        frame.setLocationRelativeTo(null);
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+    }
+}
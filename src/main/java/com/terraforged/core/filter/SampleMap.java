@@ -0,0 +1,109 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.core.filter;
+
+import com.terraforged.core.cell.Cell;
+import com.terraforged.core.tile.Size;
+import com.terraforged.n2d.Module;
+import com.terraforged.n2d.Source;
+import com.terraforged.world.heightmap.Levels;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+// A noise heightmap standing in for a tile in the benchmark & visualizer mains. The starting
+// heights are kept so that each run can be reset to the same input
+public class SampleMap implements Filterable {
+
+    private final Size size;
+    private final Cell[] cells;
+    private final float[] heights;
+
+    public SampleMap(int size, int seed, Levels levels) {
+        this.size = new Size(size, 0);
+        this.cells = new Cell[size * size];
+        this.heights = new float[cells.length];
+
+        // mostly land with some valleys dipping below the water level
+        Module noise = Source.simplex(seed, 180, 5).map(levels.water - 0.05F, levels.water + 0.45F);
+        for (int z = 0; z < size; z++) {
+            for (int x = 0; x < size; x++) {
+                int index = z * size + x;
+                heights[index] = noise.getValue(x, z);
+                cells[index] = new Cell();
+            }
+        }
+
+        reset();
+    }
+
+    public SampleMap reset() {
+        for (int i = 0; i < cells.length; i++) {
+            Cell cell = cells[i];
+            cell.value = heights[i];
+            cell.erosion = 0F;
+            cell.sediment = 0F;
+        }
+        return this;
+    }
+
+    float[] copyHeights() {
+        float[] copy = new float[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            copy[i] = cells[i].value;
+        }
+        return copy;
+    }
+
+    BufferedImage render() {
+        BufferedImage image = new BufferedImage(size.total, size.total, BufferedImage.TYPE_INT_RGB);
+        for (int z = 0; z < size.total; z++) {
+            for (int x = 0; x < size.total; x++) {
+                float value = cells[z * size.total + x].value;
+                image.setRGB(x, z, Color.HSBtoRGB(0F, 0F, Math.min(1F, Math.max(0F, value))));
+            }
+        }
+        return image;
+    }
+
+    @Override
+    public Size getSize() {
+        return size;
+    }
+
+    @Override
+    public Cell[] getBacking() {
+        return cells;
+    }
+
+    @Override
+    public Cell getCellRaw(int x, int z) {
+        int index = size.indexOf(x, z);
+        if (index < 0 || index >= size.arraySize) {
+            return Cell.empty();
+        }
+        return cells[index];
+    }
+}
@@ -25,69 +25,215 @@
 package com.terraforged.core.filter;
 
 import com.terraforged.core.cell.Cell;
+import com.terraforged.core.concurrent.Resource;
+import com.terraforged.core.concurrent.batch.Batcher;
+import com.terraforged.core.concurrent.batch.SyncBatcher;
+import com.terraforged.core.concurrent.pool.ObjectPool;
+import com.terraforged.core.concurrent.thread.ThreadPool;
 import com.terraforged.core.settings.Settings;
 import com.terraforged.n2d.util.NoiseUtil;
 import com.terraforged.world.heightmap.Levels;
 
+import java.util.Arrays;
+
 public class Smoothing implements Filter {
 
+    // rows smoothed by each task when run on a batching pool
+    private static final int ROWS_PER_TASK = 16;
+    private static final SyncBatcher SYNC = new SyncBatcher();
+    private static final ObjectPool<Buffers> BUFFERS = new ObjectPool<>(8, Buffers::new);
+
     private final int radius;
-    private final float rad2;
+    private final int iterations;
     private final float strength;
     private final Modifier modifier;
+    private final int[] kernelX;
+    private final int[] kernelZ;
+    private final float[] kernelWeights;
+    private final float kernelNormal;
 
     public Smoothing(Settings settings, Levels levels) {
         this.radius = NoiseUtil.round(settings.filters.smoothing.smoothingRadius + 0.5F);
-        this.rad2 = settings.filters.smoothing.smoothingRadius * settings.filters.smoothing.smoothingRadius;
         this.strength = settings.filters.smoothing.smoothingRate;
+        this.iterations = settings.filters.smoothing.iterations;
         this.modifier = Modifier.range(levels.ground(1), levels.ground(120)).invert();
+
+        float rad2 = settings.filters.smoothing.smoothingRadius * settings.filters.smoothing.smoothingRadius;
+        int count = 0;
+        int[] xs = new int[(radius * 2 + 1) * (radius * 2 + 1)];
+        int[] zs = new int[xs.length];
+        float[] weights = new float[xs.length];
+        for (int dz = -radius; dz <= radius; dz++) {
+            for (int dx = -radius; dx <= radius; dx++) {
+                float dist2 = dx * dx + dz * dz;
+                if (dist2 <= rad2) {
+                    xs[count] = dx;
+                    zs[count] = dz;
+                    weights[count] = 1F - (dist2 / rad2);
+                    count++;
+                }
+            }
+        }
+        this.kernelX = Arrays.copyOf(xs, count);
+        this.kernelZ = Arrays.copyOf(zs, count);
+        this.kernelWeights = Arrays.copyOf(weights, count);
+
+        // smoothed cells are always far enough from the edges for the whole kernel to apply, so the sum of
+        // its weights is the same for every cell
+        float weightSum = 0F;
+        for (int i = 0; i < count; i++) {
+            weightSum += weights[i];
+        }
+        this.kernelNormal = weightSum > 0 ? 1F / weightSum : 0F;
+    }
+
+    @Override
+    public int getHalo() {
+        // each pass reads the previous one's results so the reach grows with every iteration
+        return radius * iterations;
     }
 
     @Override
     public void apply(Filterable map, int seedX, int seedZ, int iterations) {
-        while (iterations-- > 0) {
-            apply(map);
+        apply(map, seedX, seedZ, iterations, null);
+    }
+
+    @Override
+    public void apply(Filterable map, int seedX, int seedZ, int iterations, ThreadPool pool) {
+        if (iterations <= 0) {
+            return;
+        }
+
+        Cell[] cells = map.getBacking();
+        int size = map.getSize().total;
+
+        try (Resource<Buffers> resource = BUFFERS.get()) {
+            Buffers buffers = resource.get().read(cells, size * size, modifier);
+            int[] offsets = buffers.offsets(kernelX, kernelZ, size);
+
+            // each pass reads the previous pass's heights and writes to the other buffer so that the
+            // result doesn't depend on the order that cells (or rows) are visited
+            while (iterations-- > 0) {
+                smooth(buffers, offsets, size, pool);
+                buffers.swap();
+            }
+
+            buffers.write(cells, size * size);
+        }
+    }
+
+    private void smooth(Buffers buffers, int[] offsets, int size, ThreadPool pool) {
+        int minZ = radius;
+        int maxZ = size - radius;
+        if (maxZ <= minZ) {
+            return;
+        }
+
+        // rows outside the kernel's reach of the edges are not smoothed but must carry over to the next pass
+        System.arraycopy(buffers.src, 0, buffers.dst, 0, size * size);
+
+        int tasks = (maxZ - minZ + ROWS_PER_TASK - 1) / ROWS_PER_TASK;
+        try (Resource<Batcher> resource = pool == null || !pool.supportsBatching() || tasks < 2 ? SYNC : pool.batcher()) {
+            Batcher batcher = resource.get();
+            batcher.size(tasks);
+            for (int z = minZ; z < maxZ; z += ROWS_PER_TASK) {
+                int from = z;
+                int to = Math.min(maxZ, z + ROWS_PER_TASK);
+                batcher.submit(() -> smoothRows(buffers, offsets, size, from, to));
+            }
         }
     }
 
-    private void apply(Filterable cellMap) {
-        int maxZ = cellMap.getSize().total - radius;
-        int maxX = cellMap.getSize().total - radius;
-        for (int z = radius; z < maxZ; z++) {
+    private void smoothRows(Buffers buffers, int[] offsets, int size, int minZ, int maxZ) {
+        float[] src = buffers.src;
+        float[] dst = buffers.dst;
+        float[] strengths = buffers.strength;
+        float[] weights = kernelWeights;
+        float normal = kernelNormal;
+        int maxX = size - radius;
+
+        if (normal == 0F) {
+            return;
+        }
+
+        for (int z = minZ; z < maxZ; z++) {
+            int row = z * size;
             for (int x = radius; x < maxX; x++) {
-                Cell cell = cellMap.getCellRaw(x, z);
-                if (cell.erosionMask) {
+                int index = row + x;
+                if (buffers.isMasked(index)) {
                     continue;
                 }
 
+                // the kernel never reaches past the edges of the map from within these bounds
                 float total = 0;
-                float weights = 0;
-
-                for (int dz = -radius; dz <= radius; dz++) {
-                    for (int dx = -radius; dx <= radius; dx++) {
-                        float dist2 = dx * dx + dz * dz;
-                        if (dist2 > rad2) {
-                            continue;
-                        }
-
-                        int px = x + dx;
-                        int pz = z + dz;
-                        Cell neighbour = cellMap.getCellRaw(px, pz);
-                        if (neighbour.isAbsent()) {
-                            continue;
-                        }
-
-                        float value = neighbour.value;
-                        float weight = 1F - (dist2 / rad2);
-                        total += (value * weight);
-                        weights += weight;
-                    }
+                for (int i = 0; i < offsets.length; i++) {
+                    total += src[index + offsets[i]] * weights[i];
+                }
+
+                float value = src[index];
+                float dif = value - (total * normal);
+                dst[index] = value - modifier.getValueModifier(value) * strengths[index] * (dif * strength);
+            }
+        }
+    }
+
+    private static class Buffers {
+
+        private float[] src = new float[0];
+        private float[] dst = new float[0];
+        private float[] strength = new float[0];
+        private long[] mask = new long[0];
+        private int[] offsets = new int[0];
+        private int offsetsSize = -1;
+
+        // pooled backing arrays may be longer than the map so only the map's cells are read (and written)
+        private Buffers read(Cell[] cells, int length, Modifier modifier) {
+            if (src.length < length) {
+                src = new float[length];
+                dst = new float[length];
+                strength = new float[length];
+                mask = new long[(length + 63) >>> 6];
+            } else {
+                Arrays.fill(mask, 0, (length + 63) >>> 6, 0L);
+            }
+
+            for (int i = 0; i < length; i++) {
+                Cell cell = cells[i];
+                src[i] = cell.value;
+                if (cell.erosionMask) {
+                    mask[i >>> 6] |= 1L << i;
+                } else {
+                    strength[i] = modifier.getStrengthModifier(cell);
                 }
+            }
 
-                if (weights > 0) {
-                    float dif = cell.value - (total / weights);
-                    cell.value -= modifier.modify(cell, dif * strength);
+            return this;
+        }
+
+        private int[] offsets(int[] kernelX, int[] kernelZ, int size) {
+            if (offsets.length != kernelX.length || offsetsSize != size) {
+                offsets = new int[kernelX.length];
+                for (int i = 0; i < offsets.length; i++) {
+                    offsets[i] = kernelZ[i] * size + kernelX[i];
                 }
+                offsetsSize = size;
+            }
+            return offsets;
+        }
+
+        private boolean isMasked(int index) {
+            return (mask[index >>> 6] & (1L << index)) != 0;
+        }
+
+        private void swap() {
+            float[] temp = src;
+            src = dst;
+            dst = temp;
+        }
+
+        private void write(Cell[] cells, int length) {
+            for (int i = 0; i < length; i++) {
+                cells[i].value = src[i];
             }
         }
     }
@@ -0,0 +1,77 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.core.filter;
+
+import com.terraforged.core.concurrent.thread.ThreadPool;
+import com.terraforged.core.concurrent.thread.ThreadPools;
+import com.terraforged.core.settings.Settings;
+import com.terraforged.world.heightmap.Levels;
+
+public class SmoothingBenchmark {
+
+    public static void main(String[] args) {
+        int size = 512;
+        int warmup = 5;
+        int runs = 20;
+        float[] radii = {1.5F, 2.5F, 4.5F, 8.5F};
+
+        Settings settings = new Settings();
+        Levels levels = new Levels(settings.world);
+        SampleMap map = new SampleMap(size, 123, levels);
+        ThreadPool pool = ThreadPools.create(ThreadPools.defaultPoolSize(), true, true);
+
+        try {
+            for (float radius : radii) {
+                settings.filters.smoothing.smoothingRadius = radius;
+                Smoothing smoothing = new Smoothing(settings, levels);
+
+                double serial = time(smoothing, map, null, warmup, runs);
+                double pooled = time(smoothing, map, pool, warmup, runs);
+                double cells = (double) size * size / 1000000D;
+                System.out.printf("Radius: %.1f, Serial: %.3fms (%.1f Mcells/s), Pooled(%s): %.3fms (%.1f Mcells/s)\n",
+                        radius, serial, cells / (serial / 1000D), pool.size(), pooled, cells / (pooled / 1000D));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // average time in milliseconds for a single smoothing pass
+    private static double time(Smoothing smoothing, SampleMap map, ThreadPool pool, int warmup, int runs) {
+        for (int i = 0; i < warmup; i++) {
+            smoothing.apply(map.reset(), 0, 0, 1, pool);
+        }
+
+        long time = 0L;
+        for (int i = 0; i < runs; i++) {
+            map.reset();
+            long start = System.nanoTime();
+            smoothing.apply(map, 0, 0, 1, pool);
+            time += System.nanoTime() - start;
+        }
+
+        return time / 1000000D / runs;
+    }
+}
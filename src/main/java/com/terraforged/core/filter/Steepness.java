@@ -28,7 +28,7 @@ import com.terraforged.core.cell.Cell;
 import com.terraforged.world.heightmap.Levels;
 import com.terraforged.world.terrain.Terrains;
 
-public class  Steepness implements Filter, Filter.Visitor {
+public class  Steepness implements Filter, Filter.Visitor, Filter.HeightVisitor {
 
     private final int radius;
     private final float scaler;
@@ -44,6 +44,11 @@ public class  Steepness implements Filter, Filter.Visitor {
         this.maxBeachLevel = levels.water(6);
     }
 
+    @Override
+    public int getHalo() {
+        return radius * 2;
+    }
+
     @Override
     public void apply(Filterable cellMap, int seedX, int seedZ, int iterations) {
         iterate(cellMap, this);
@@ -72,4 +77,26 @@ public class  Steepness implements Filter, Filter.Visitor {
         }
         cell.gradient = Math.min(1, totalHeightDif * scaler);
     }
+
+    @Override
+    public void visit(float[] heights, int size, Cell cell, int cx, int cz) {
+        float totalHeightDif = 0F;
+        for (int dz = -1; dz <= 2; dz++) {
+            for (int dx = -1; dx <= 2; dx++) {
+                if (dx == 0 && dz == 0) {
+                    continue;
+                }
+
+                int index = (cz + dz * radius) * size + cx + dx * radius;
+                if (index < 0 || index >= size * size) {
+                    continue;
+                }
+
+                float height = Math.max(heights[index], waterLevel);
+
+                totalHeightDif += (Math.abs(cell.value - height) / radius);
+            }
+        }
+        cell.gradient = Math.min(1, totalHeightDif * scaler);
+    }
 }
@@ -126,6 +126,10 @@ public class RenderWorld {
                 int index = rx + rz * regionCount;
                 float px = x + (rx * regionSize.size * zoom) - offset;
                 float py = y + (rz * regionSize.size * zoom) - offset;
+                if (queue[index] != null) {
+                    // the previous view's region is obsolete
+                    queue[index].cancel();
+                }
                 queue[index] = generator.getAsync(px, py, zoom, filters).then(threadPool, renderer::render);
             }
         }
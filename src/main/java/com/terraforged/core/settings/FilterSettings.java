@@ -35,6 +35,8 @@ public class FilterSettings {
 
     public Smoothing smoothing = new Smoothing();
 
+    public Pipeline pipeline = new Pipeline();
+
     @Serializable
     public static class Erosion {
 
@@ -62,6 +64,43 @@ public class FilterSettings {
         @Comment("Controls the starting velocity of the simulated water droplet")
         public float dropletVelocity = 0.7F;
 
+        @Comment({"Simulates droplets in parallel, one sub-region of the tile at a time in each thread.",
+                "The result is the same regardless of how many threads are used"})
+        public boolean parallel = false;
+
+        @Comment({"Starts more droplets on steep, high ground and none in water or on masked cells (eg rivers),",
+                "rather than spreading them evenly over the tile"})
+        public boolean importanceSampling = false;
+
+        @Range(min = 0F, max = 1F)
+        @Comment("Stops simulating a droplet once its velocity falls below this value (0 = never)")
+        public float minSpeed = 0F;
+
+        @Range(min = 0F, max = 1F)
+        @Comment("Stops simulating a droplet once the water it carries falls below this value (0 = never)")
+        public float minVolume = 0F;
+
+        @Range(min = 0F, max = 1F)
+        @Comment("Stops simulating a droplet once it moves less than this many blocks up or down in a step (0 = never)")
+        public float minHeightChange = 0F;
+
+        @Range(min = 0, max = 2000000)
+        @Comment("The maximum number of droplet steps simulated per tile. Further droplets are skipped (0 = unlimited)")
+        public int stepBudget = 0;
+
+        @Range(min = 0, max = 1000)
+        @Comment("The maximum time in milliseconds spent eroding a tile. Further droplets are skipped (0 = unlimited)")
+        public int timeBudget = 0;
+
+        @Range(min = 1, max = 4)
+        @Comment({"Runs a first pass on the heightmap downsampled by this factor (eg 2 or 4) to carve large",
+                "valleys cheaply, before refining at full resolution (1 = off)"})
+        public int downsample = 1;
+
+        @Range(min = 0F, max = 1F)
+        @Comment("The share of the iterations used for the full resolution pass when downsampling")
+        public float fineIterations = 0.5F;
+
         public Erosion() {
 
         }
@@ -74,10 +113,52 @@ public class FilterSettings {
             erosion.dropletLifetime = dropletLifetime;
             erosion.dropletVolume = dropletVolume;
             erosion.dropletVelocity = dropletVelocity;
+            erosion.parallel = parallel;
+            erosion.importanceSampling = importanceSampling;
+            erosion.minSpeed = minSpeed;
+            erosion.minVolume = minVolume;
+            erosion.minHeightChange = minHeightChange;
+            erosion.stepBudget = stepBudget;
+            erosion.timeBudget = timeBudget;
+            erosion.downsample = downsample;
+            erosion.fineIterations = fineIterations;
             return erosion;
         }
     }
 
+    public enum Type {
+        NONE,
+        EROSION,
+        SMOOTHING,
+        STEEPNESS,
+        BEACH,
+        RIVERS,
+        ;
+    }
+
+    @Serializable
+    public static class Pipeline {
+
+        @Comment("The first filter applied to each tile")
+        public Type stage1 = Type.EROSION;
+
+        @Comment("The second filter applied to each tile")
+        public Type stage2 = Type.SMOOTHING;
+
+        @Comment("The third filter applied to each tile")
+        public Type stage3 = Type.STEEPNESS;
+
+        @Comment("The fourth filter applied to each tile")
+        public Type stage4 = Type.BEACH;
+
+        @Comment("The fifth filter applied to each tile")
+        public Type stage5 = Type.NONE;
+
+        public Type[] getStages() {
+            return new Type[]{stage1, stage2, stage3, stage4, stage5};
+        }
+    }
+
     @Serializable
     public static class Smoothing {
 
@@ -29,7 +29,9 @@ import com.terraforged.core.concurrent.Disposable;
 import com.terraforged.core.concurrent.Resource;
 import com.terraforged.core.concurrent.batch.Batcher;
 import com.terraforged.core.concurrent.cache.SafeCloseable;
+import com.terraforged.core.concurrent.thread.ForkJoinThreadPool;
 import com.terraforged.core.filter.Filterable;
+import com.terraforged.core.tile.chunk.ChunkAreaTask;
 import com.terraforged.core.tile.chunk.ChunkBatchTask;
 import com.terraforged.core.tile.chunk.ChunkGenTask;
 import com.terraforged.core.tile.chunk.ChunkReader;
@@ -39,6 +41,7 @@ import com.terraforged.world.heightmap.Heightmap;
 import com.terraforged.world.rivermap.Rivermap;
 
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
@@ -61,13 +64,20 @@ public class Tile implements Disposable, SafeCloseable {
     private final Resource<Cell[]> blockResource;
     private final Resource<GenChunk[]> chunkResource;
 
-    // keeps track of 'open/active' chunks (ie chunks that are being read from)
-    private final AtomicInteger active = new AtomicInteger();
+    // reference count held by the owner of the tile (eg the cache) plus one per open chunk reader.
+    // the pooled resources are released by whoever drops the count to zero, after which it can not be re-opened
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    // guards the owner's reference so that closing the tile more than once does not release it early
+    private final AtomicBoolean closed = new AtomicBoolean();
 
     // keeps track of 'disposed' chunks (ie chunks that we do not expect to read from again)
     // once all chunks have been disposed the disposal listener is notified
     private final AtomicInteger disposed = new AtomicInteger();
 
+    // set when the tile is no longer wanted so that generation stops at the next chunk or filter stage
+    private volatile boolean cancelled = false;
+
     // basically the RegionCache
     private final Disposable.Listener<Tile> listener;
 
@@ -106,23 +116,58 @@ public class Tile implements Disposable, SafeCloseable {
      */
     @Override
     public void close() {
-        // only dispose resources if there are no chunks actively being used
-        if (active.compareAndSet(0, -1)) {
-            if (blockResource.isOpen()) {
-                // cells can be reused
-                for (Cell cell : blocks) {
-                    if (cell != null) {
-                        cell.reset();
-                    }
-                }
-                blockResource.close();
+        if (closed.compareAndSet(false, true)) {
+            // resources are only released once the last open chunk has also been closed
+            release();
+        }
+    }
+
+    /**
+     * Marks the tile as obsolete. Generation in progress stops cooperatively at the next chunk or filter stage
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isReleased() {
+        return references.get() <= 0;
+    }
+
+    private boolean retain() {
+        while (true) {
+            int count = references.get();
+            if (count <= 0) {
+                return false;
+            }
+            if (references.compareAndSet(count, count + 1)) {
+                return true;
             }
+        }
+    }
 
-            if (chunkResource.isOpen()) {
-                // chunks must be null'd
-                Arrays.fill(chunks, null);
-                chunkResource.close();
+    private void release() {
+        if (references.decrementAndGet() != 0) {
+            return;
+        }
+
+        if (blockResource.isOpen()) {
+            // cells can be reused
+            for (Cell cell : blocks) {
+                if (cell != null) {
+                    cell.reset();
+                }
             }
+            blockResource.close();
+        }
+
+        if (chunkResource.isOpen()) {
+            // chunks must be null'd
+            Arrays.fill(chunks, null);
+            chunkResource.close();
         }
     }
 
@@ -191,7 +236,11 @@ public class Tile implements Disposable, SafeCloseable {
         int relChunkX = chunkSize.border + chunkSize.mask(chunkX);
         int relChunkZ = chunkSize.border + chunkSize.mask(chunkZ);
         int index = chunkSize.indexOf(relChunkX, relChunkZ);
-        return chunks[index].open();
+        GenChunk chunk = chunks[index];
+        if (chunk == null) {
+            throw new IllegalStateException("Tile has been released");
+        }
+        return chunk.open();
     }
 
     public void generate(Consumer<ChunkWriter> consumer) {
@@ -208,6 +257,9 @@ public class Tile implements Disposable, SafeCloseable {
         Rivermap riverMap = null;
         for (int cz = 0; cz < chunkSize.total; cz++) {
             for (int cx = 0; cx < chunkSize.total; cx++) {
+                if (cancelled) {
+                    return;
+                }
                 int index = chunkSize.indexOf(cx, cz);
                 GenChunk chunk = computeChunk(index, cx, cz);
                 for (int dz = 0; dz < 16; dz++) {
@@ -228,6 +280,7 @@ public class Tile implements Disposable, SafeCloseable {
     }
 
     public void generate(Heightmap heightmap, Batcher batcher) {
+        batcher.size(chunkSize.total * chunkSize.total);
         for (int cz = 0; cz < chunkSize.total; cz++) {
             for (int cx = 0; cx < chunkSize.total; cx++) {
                 int index = chunkSize.indexOf(cx, cz);
@@ -243,6 +296,9 @@ public class Tile implements Disposable, SafeCloseable {
         float translateZ = offsetZ - ((blockSize.size * zoom) / 2F);
         for (int cz = 0; cz < chunkSize.total; cz++) {
             for (int cx = 0; cx < chunkSize.total; cx++) {
+                if (cancelled) {
+                    return;
+                }
                 int index = chunkSize.indexOf(cx, cz);
                 GenChunk chunk = computeChunk(index, cx, cz);
                 for (int dz = 0; dz < 16; dz++) {
@@ -314,6 +370,18 @@ public class Tile implements Disposable, SafeCloseable {
         }
     }
 
+    public void generateArea(Heightmap heightmap, ForkJoinThreadPool pool, int batchSize) {
+        int leafSize = Math.max(1, chunkSize.total / batchSize);
+        pool.invoke(ChunkAreaTask.of(this, heightmap, leafSize));
+    }
+
+    public void generateArea(Heightmap heightmap, ForkJoinThreadPool pool, int batchSize, float offsetX, float offsetZ, float zoom) {
+        int leafSize = Math.max(1, chunkSize.total / batchSize);
+        float translateX = offsetX - ((blockSize.size * zoom) / 2F);
+        float translateZ = offsetZ - ((blockSize.size * zoom) / 2F);
+        pool.invoke(ChunkAreaTask.of(this, heightmap, leafSize, translateX, translateZ, zoom));
+    }
+
     public void iterate(Cell.Visitor visitor) {
         for (int dz = 0; dz < blockSize.size; dz++) {
             int z = blockSize.border + dz;
@@ -366,14 +434,16 @@ public class Tile implements Disposable, SafeCloseable {
             this.blockZ = chunkZ << 4;
         }
 
-        public GenChunk open() {
-            active.getAndIncrement();
-            return this;
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
         }
 
-        @Override
-        public void close() {
-            active.decrementAndGet();
+        public ChunkReader open() {
+            if (!retain()) {
+                throw new IllegalStateException("Tile has been released");
+            }
+            return new Reader(this);
         }
 
         @Override
@@ -418,6 +488,54 @@ public class Tile implements Disposable, SafeCloseable {
         }
     }
 
+    // a single reader's hold on a chunk. closing it more than once only drops the one reference
+    private class Reader implements ChunkReader {
+
+        private final GenChunk chunk;
+        private final AtomicBoolean open = new AtomicBoolean(true);
+
+        private Reader(GenChunk chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        public Cell getCell(int dx, int dz) {
+            return chunk.getCell(dx, dz);
+        }
+
+        @Override
+        public int getChunkX() {
+            return chunk.getChunkX();
+        }
+
+        @Override
+        public int getChunkZ() {
+            return chunk.getChunkZ();
+        }
+
+        @Override
+        public int getBlockX() {
+            return chunk.getBlockX();
+        }
+
+        @Override
+        public int getBlockZ() {
+            return chunk.getBlockZ();
+        }
+
+        @Override
+        public void dispose() {
+            chunk.dispose();
+        }
+
+        @Override
+        public void close() {
+            if (open.compareAndSet(true, false)) {
+                release();
+            }
+        }
+    }
+
     private class FilterRegion implements Filterable {
 
         @Override
@@ -0,0 +1,196 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.core.tile;
+
+import com.terraforged.core.concurrent.Resource;
+import com.terraforged.core.tile.chunk.ChunkReader;
+import com.terraforged.core.tile.gen.TileResources;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Opens & closes chunk readers on many threads while the tiles are being closed, then checks that every
+// tile's pooled block & chunk arrays went back to the pools exactly once: a missing array means the tile
+// leaked, the same array coming out of the pool twice means it was returned twice
+public class TileReleaseStress {
+
+    public static void main(String[] args) throws InterruptedException {
+        int rounds = 200;
+        int tileCount = 16;
+        int readers = Math.max(4, Runtime.getRuntime().availableProcessors());
+        int readsPerThread = 2000;
+
+        long reads = 0L;
+        long rejected = 0L;
+        int failures = 0;
+        long start = System.nanoTime();
+
+        for (int round = 0; round < rounds; round++) {
+            TileResources resources = new TileResources();
+            Tile[] tiles = new Tile[tileCount];
+            Set<Object> blockArrays = Collections.newSetFromMap(new IdentityHashMap<>());
+            Set<Object> chunkArrays = Collections.newSetFromMap(new IdentityHashMap<>());
+
+            // the pools are filled with known arrays up front so that the tiles take (and must return) those
+            Size blockSize = Size.blocks(1, 0);
+            Size chunkSize = Size.chunks(1, 0);
+            fill(resources.blocks.get(blockSize.arraySize), blockArrays, tiles.length, () -> resources.blocks.get(blockSize.arraySize));
+            fill(resources.chunks.get(chunkSize.arraySize), chunkArrays, tiles.length, () -> resources.chunks.get(chunkSize.arraySize));
+
+            for (int i = 0; i < tiles.length; i++) {
+                Tile tile = new Tile(i, round, 1, 0, resources, t -> {});
+                tile.generate(chunk -> {});
+                tiles[i] = tile;
+            }
+
+            AtomicLong roundReads = new AtomicLong();
+            AtomicLong roundRejected = new AtomicLong();
+            CountDownLatch ready = new CountDownLatch(readers + 1);
+            CountDownLatch done = new CountDownLatch(readers);
+
+            for (int r = 0; r < readers; r++) {
+                Thread thread = new Thread(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    ready.countDown();
+                    await(ready);
+                    try {
+                        for (int i = 0; i < readsPerThread; i++) {
+                            Tile tile = tiles[random.nextInt(tiles.length)];
+                            ChunkReader reader;
+                            try {
+                                reader = tile.getChunk(random.nextInt(2), random.nextInt(2));
+                            } catch (IllegalStateException e) {
+                                roundRejected.incrementAndGet();
+                                continue;
+                            }
+
+                            reader.getBlockX();
+                            if (random.nextInt(8) == 0) {
+                                Thread.yield();
+                            }
+
+                            reader.close();
+                            // a second close must not drop another reference
+                            if (random.nextBoolean()) {
+                                reader.close();
+                            }
+                            roundReads.incrementAndGet();
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                });
+                thread.start();
+            }
+
+            ready.countDown();
+            await(ready);
+
+            // the owner closes each tile (sometimes twice) part way through the reads
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (Tile tile : tiles) {
+                if (random.nextBoolean()) {
+                    Thread.yield();
+                }
+                tile.close();
+                if (random.nextBoolean()) {
+                    tile.close();
+                }
+            }
+
+            done.await();
+            reads += roundReads.get();
+            rejected += roundRejected.get();
+
+            int unreleased = 0;
+            for (Tile tile : tiles) {
+                if (!tile.isReleased()) {
+                    unreleased++;
+                }
+            }
+
+            int blocksReturned = drain(resources.blocks.get(blockSize.arraySize), blockArrays, tiles.length, () -> resources.blocks.get(blockSize.arraySize));
+            int chunksReturned = drain(resources.chunks.get(chunkSize.arraySize), chunkArrays, tiles.length, () -> resources.chunks.get(chunkSize.arraySize));
+
+            if (unreleased > 0 || blocksReturned != tiles.length || chunksReturned != tiles.length) {
+                failures++;
+                System.out.printf("Round %s failed: unreleased=%s, block arrays returned=%s/%s, chunk arrays returned=%s/%s\n",
+                        round, unreleased, blocksReturned, tiles.length, chunksReturned, tiles.length);
+            }
+        }
+
+        double total = (System.nanoTime() - start) / 1000000D;
+        System.out.printf("Rounds: %s, Reads: %s, Rejected (after release): %s, Failed rounds: %s, Time: %.3fms\n",
+                rounds, reads, rejected, failures, total);
+
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static <T> void fill(Resource<T[]> first, Set<Object> owned, int count, Supplier<Resource<T[]>> next) {
+        Resource<?>[] resources = new Resource<?>[count];
+        resources[0] = first;
+        for (int i = 1; i < count; i++) {
+            resources[i] = next.get();
+        }
+        for (Resource<?> resource : resources) {
+            owned.add(resource.get());
+            resource.close();
+        }
+    }
+
+    // takes arrays back out of the pool until it hands out one that no tile owned (ie a fresh one), counting
+    // those that came from the tiles. an array seen twice was returned twice so is counted as a failure
+    private static <T> int drain(Resource<T[]> first, Set<Object> owned, int max, Supplier<Resource<T[]>> next) {
+        Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Resource<T[]> resource = first;
+        for (int i = 0; i <= max; i++) {
+            Object array = resource.get();
+            if (!owned.contains(array)) {
+                return seen.size();
+            }
+            if (!seen.add(array)) {
+                return -1;
+            }
+            resource = next.get();
+        }
+        // more arrays came back than were handed out
+        return -1;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.core.tile.chunk;
+
+import com.terraforged.core.tile.Tile;
+import com.terraforged.world.heightmap.Heightmap;
+
+import java.util.concurrent.RecursiveAction;
+
+// Generates a rectangle of a tile's chunk grid by recursively splitting it into quadrants until each piece
+// is no larger than leafSize x leafSize chunks. Sub-areas are forked onto the current worker's deque so idle
+// workers steal them, rather than every piece being submitted to the pool from outside.
+public class ChunkAreaTask extends RecursiveAction {
+
+    private final int minX;
+    private final int minZ;
+    private final int maxX;
+    private final int maxZ;
+    private final int leafSize;
+    private final Tile tile;
+    private final Heightmap heightmap;
+    // supplies the per-chunk generation (plain or zoomed) for the leaves
+    private final ChunkBatchTask driver;
+
+    private ChunkAreaTask(int minX, int minZ, int maxX, int maxZ, int leafSize, Tile tile, Heightmap heightmap, ChunkBatchTask driver) {
+        this.minX = minX;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxZ = maxZ;
+        this.leafSize = leafSize;
+        this.tile = tile;
+        this.heightmap = heightmap;
+        this.driver = driver;
+    }
+
+    @Override
+    protected void compute() {
+        if (tile.isCancelled()) {
+            return;
+        }
+
+        int width = maxX - minX;
+        int length = maxZ - minZ;
+        if (width <= leafSize && length <= leafSize) {
+            computeLeaf();
+            return;
+        }
+
+        // split the longer sides only so that thin strips do not produce empty quadrants
+        int midX = width > leafSize ? minX + width / 2 : maxX;
+        int midZ = length > leafSize ? minZ + length / 2 : maxZ;
+        if (midX == maxX) {
+            invokeAll(child(minX, minZ, maxX, midZ), child(minX, midZ, maxX, maxZ));
+        } else if (midZ == maxZ) {
+            invokeAll(child(minX, minZ, midX, maxZ), child(midX, minZ, maxX, maxZ));
+        } else {
+            invokeAll(
+                    child(minX, minZ, midX, midZ),
+                    child(midX, minZ, maxX, midZ),
+                    child(minX, midZ, midX, maxZ),
+                    child(midX, midZ, maxX, maxZ)
+            );
+        }
+    }
+
+    private void computeLeaf() {
+        for (int cz = minZ; cz < maxZ; cz++) {
+            for (int cx = minX; cx < maxX; cx++) {
+                // checked per chunk so that an obsolete tile gives up its workers promptly
+                if (tile.isCancelled()) {
+                    return;
+                }
+
+                try {
+                    driver.driveOne(tile.getChunkWriter(cx, cz), heightmap);
+                } catch (Throwable t) {
+                    t.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private ChunkAreaTask child(int minX, int minZ, int maxX, int maxZ) {
+        return new ChunkAreaTask(minX, minZ, maxX, maxZ, leafSize, tile, heightmap, driver);
+    }
+
+    public static ChunkAreaTask of(Tile tile, Heightmap heightmap, int leafSize) {
+        ChunkBatchTask driver = new ChunkBatchTask(0, 0, 0, tile, heightmap);
+        return of(tile, heightmap, leafSize, driver);
+    }
+
+    public static ChunkAreaTask of(Tile tile, Heightmap heightmap, int leafSize, float translateX, float translateZ, float zoom) {
+        ChunkBatchTask driver = new ChunkBatchTask.Zoom(0, 0, 0, tile, heightmap, translateX, translateZ, zoom);
+        return of(tile, heightmap, leafSize, driver);
+    }
+
+    private static ChunkAreaTask of(Tile tile, Heightmap heightmap, int leafSize, ChunkBatchTask driver) {
+        int size = tile.getChunkSize().total;
+        return new ChunkAreaTask(0, 0, size, size, Math.max(1, leafSize), tile, heightmap, driver);
+    }
+}
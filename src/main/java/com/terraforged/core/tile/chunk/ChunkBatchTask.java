@@ -75,6 +75,11 @@ public class ChunkBatchTask implements BatchTask {
                     continue;
                 }
 
+                // checked per chunk so that an obsolete tile gives up its workers promptly
+                if (tile.isCancelled()) {
+                    return;
+                }
+
                 try {
                     driveOne(tile.getChunkWriter(cx, cz), heightmap);
                 } catch (Throwable t) {
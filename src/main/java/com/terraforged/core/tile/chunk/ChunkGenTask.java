@@ -49,7 +49,9 @@ public class ChunkGenTask implements BatchTask {
     @Override
     public void run() {
         try {
-            driveOne(chunk, heightmap);
+            if (!chunk.isCancelled()) {
+                driveOne(chunk, heightmap);
+            }
         } finally {
             notifier.markDone();
         }
@@ -30,6 +30,13 @@ public interface ChunkWriter extends ChunkHolder {
 
     Cell genCell(int dx, int dz);
 
+    /**
+     * Whether the tile this chunk belongs to is no longer wanted, in which case it need not be generated
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+
     default void generate(Cell.Visitor visitor) {
         for (int dz = 0; dz < 16; dz++) {
             for (int dx = 0; dx < 16; dx++) {
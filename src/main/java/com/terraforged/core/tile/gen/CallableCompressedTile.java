@@ -0,0 +1,48 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.core.tile.gen;
+
+import com.terraforged.core.concurrent.LazyCallable;
+import com.terraforged.core.tile.Tile;
+import com.terraforged.core.util.metric.Metric;
+import com.terraforged.core.util.metric.Metrics;
+
+public class CallableCompressedTile extends LazyCallable<Tile> {
+
+    private final CompressedTile tile;
+    private final TileGenerator generator;
+
+    public CallableCompressedTile(CompressedTile tile, TileGenerator generator) {
+        this.tile = tile;
+        this.generator = generator;
+    }
+
+    @Override
+    protected Tile create() {
+        try (Metric.Timer timer = Metrics.TILE_DECODE.timer()) {
+            return tile.decode(generator.createEmptyRegion(tile.getRegionX(), tile.getRegionZ()));
+        }
+    }
+}
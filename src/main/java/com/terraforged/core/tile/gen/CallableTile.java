@@ -26,6 +26,8 @@ package com.terraforged.core.tile.gen;
 
 import com.terraforged.core.concurrent.LazyCallable;
 import com.terraforged.core.tile.Tile;
+import com.terraforged.core.util.metric.Metric;
+import com.terraforged.core.util.metric.Metrics;
 
 public class CallableTile extends LazyCallable<Tile> {
 
@@ -33,6 +35,8 @@ public class CallableTile extends LazyCallable<Tile> {
     private final int regionZ;
     private final TileGenerator generator;
 
+    private volatile Tile tile = null;
+
     public CallableTile(int regionX, int regionZ, TileGenerator generator) {
         this.regionX = regionX;
         this.regionZ = regionZ;
@@ -41,6 +45,21 @@ public class CallableTile extends LazyCallable<Tile> {
 
     @Override
     protected Tile create() {
-        return generator.generateRegion(regionX, regionZ);
+        try (Metric.Timer timer = Metrics.TILE_GEN.timer()) {
+            Tile tile = generator.createEmptyRegion(regionX, regionZ);
+            this.tile = tile;
+            if (isCancelled()) {
+                tile.cancel();
+            }
+            return generator.generateRegion(tile);
+        }
+    }
+
+    @Override
+    protected void onCancel() {
+        Tile tile = this.tile;
+        if (tile != null) {
+            tile.cancel();
+        }
     }
 }
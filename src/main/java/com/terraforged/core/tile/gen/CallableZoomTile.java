@@ -35,6 +35,8 @@ public class CallableZoomTile extends LazyCallable<Tile> {
     private final boolean filters;
     private final TileGenerator generator;
 
+    private volatile Tile tile = null;
+
     public CallableZoomTile(float centerX, float centerY, float zoom, boolean filters, TileGenerator generator) {
         this.centerX = centerX;
         this.centerY = centerY;
@@ -45,6 +47,19 @@ public class CallableZoomTile extends LazyCallable<Tile> {
 
     @Override
     protected Tile create() {
-        return generator.generateRegion(centerX, centerY, zoom, filters);
+        Tile tile = generator.createEmptyRegion(0, 0);
+        this.tile = tile;
+        if (isCancelled()) {
+            tile.cancel();
+        }
+        return generator.generateRegion(tile, centerX, centerY, zoom, filters);
+    }
+
+    @Override
+    protected void onCancel() {
+        Tile tile = this.tile;
+        if (tile != null) {
+            tile.cancel();
+        }
     }
 }
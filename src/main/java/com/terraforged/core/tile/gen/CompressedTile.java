@@ -0,0 +1,320 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.core.tile.gen;
+
+import com.terraforged.core.cell.Cell;
+import com.terraforged.core.tile.Tile;
+import com.terraforged.world.biome.BiomeType;
+import com.terraforged.world.terrain.Terrain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// A Tile's cell data packed into a byte array so that it can be held in memory at a fraction of the cost
+// of the full tile. Cells are visited in chunk order and each field is written as its own stream:
+// - smooth fields are quantized to 16 bits and delta encoded (heights lose < 1/65535 of the world height)
+// - identity, erosion & sediment values are xor'd with the previous value so repeated values cost a byte
+// - terrain, biome & erosion mask are run-length encoded
+public class CompressedTile {
+
+    private static final float QUANTIZE = 65535F;
+    private static final BiomeType[] BIOMES = BiomeType.values();
+
+    private final int regionX;
+    private final int regionZ;
+    private final int cellCount;
+    private final byte[] data;
+    private final Terrain[] terrains;
+
+    private CompressedTile(int regionX, int regionZ, int cellCount, byte[] data, Terrain[] terrains) {
+        this.regionX = regionX;
+        this.regionZ = regionZ;
+        this.cellCount = cellCount;
+        this.data = data;
+        this.terrains = terrains;
+    }
+
+    public int getRegionX() {
+        return regionX;
+    }
+
+    public int getRegionZ() {
+        return regionZ;
+    }
+
+    public long getSizeBytes() {
+        // array headers, fields & terrain palette references
+        return data.length + (terrains.length * 4L) + 64L;
+    }
+
+    public Tile decode(Tile tile) {
+        Cell[] cells = collect(tile);
+        if (cells.length != cellCount) {
+            throw new IllegalStateException("Tile size does not match compressed tile");
+        }
+
+        Reader reader = new Reader(data);
+        readQuantized(reader, cells, (cell, value) -> cell.value = value);
+        readQuantized(reader, cells, (cell, value) -> cell.waterLevel = value);
+        readQuantized(reader, cells, (cell, value) -> cell.continentEdge = value);
+        readQuantized(reader, cells, (cell, value) -> cell.terrainRegionEdge = value);
+        readQuantized(reader, cells, (cell, value) -> cell.biomeEdge = value);
+        readQuantized(reader, cells, (cell, value) -> cell.riverMask = value);
+        readQuantized(reader, cells, (cell, value) -> cell.moisture = value);
+        readQuantized(reader, cells, (cell, value) -> cell.temperature = value);
+        readQuantized(reader, cells, (cell, value) -> cell.macroNoise = value);
+        readQuantized(reader, cells, (cell, value) -> cell.gradient = value);
+        readExact(reader, cells, (cell, value) -> cell.continentIdentity = value);
+        readExact(reader, cells, (cell, value) -> cell.terrainRegionIdentity = value);
+        readExact(reader, cells, (cell, value) -> cell.biomeIdentity = value);
+        readExact(reader, cells, (cell, value) -> cell.erosion = value);
+        readExact(reader, cells, (cell, value) -> cell.sediment = value);
+
+        int continentX = 0;
+        int continentZ = 0;
+        for (Cell cell : cells) {
+            continentX += reader.readSigned();
+            continentZ += reader.readSigned();
+            cell.continentX = continentX;
+            cell.continentZ = continentZ;
+        }
+
+        for (int i = 0; i < cells.length; ) {
+            Terrain terrain = terrains[reader.readUnsigned()];
+            int end = i + reader.readUnsigned();
+            for (; i < end; i++) {
+                cells[i].terrain = terrain;
+            }
+        }
+
+        for (int i = 0; i < cells.length; ) {
+            BiomeType biome = BIOMES[reader.readUnsigned()];
+            int end = i + reader.readUnsigned();
+            for (; i < end; i++) {
+                cells[i].biomeType = biome;
+            }
+        }
+
+        boolean mask = false;
+        for (int i = 0; i < cells.length; mask = !mask) {
+            int end = i + reader.readUnsigned();
+            for (; i < end; i++) {
+                cells[i].erosionMask = mask;
+            }
+        }
+
+        return tile;
+    }
+
+    public static CompressedTile encode(Tile tile) {
+        Cell[] cells = collect(tile);
+        Writer writer = new Writer(cells.length * 12);
+        writeQuantized(writer, cells, cell -> cell.value);
+        writeQuantized(writer, cells, cell -> cell.waterLevel);
+        writeQuantized(writer, cells, cell -> cell.continentEdge);
+        writeQuantized(writer, cells, cell -> cell.terrainRegionEdge);
+        writeQuantized(writer, cells, cell -> cell.biomeEdge);
+        writeQuantized(writer, cells, cell -> cell.riverMask);
+        writeQuantized(writer, cells, cell -> cell.moisture);
+        writeQuantized(writer, cells, cell -> cell.temperature);
+        writeQuantized(writer, cells, cell -> cell.macroNoise);
+        writeQuantized(writer, cells, cell -> cell.gradient);
+        writeExact(writer, cells, cell -> cell.continentIdentity);
+        writeExact(writer, cells, cell -> cell.terrainRegionIdentity);
+        writeExact(writer, cells, cell -> cell.biomeIdentity);
+        writeExact(writer, cells, cell -> cell.erosion);
+        writeExact(writer, cells, cell -> cell.sediment);
+
+        int continentX = 0;
+        int continentZ = 0;
+        for (Cell cell : cells) {
+            writer.writeSigned(cell.continentX - continentX);
+            writer.writeSigned(cell.continentZ - continentZ);
+            continentX = cell.continentX;
+            continentZ = cell.continentZ;
+        }
+
+        List<Terrain> palette = new ArrayList<>();
+        for (int i = 0; i < cells.length; ) {
+            Terrain terrain = cells[i].terrain;
+            int start = i;
+            while (i < cells.length && cells[i].terrain == terrain) {
+                i++;
+            }
+            int id = palette.indexOf(terrain);
+            if (id == -1) {
+                id = palette.size();
+                palette.add(terrain);
+            }
+            writer.writeUnsigned(id);
+            writer.writeUnsigned(i - start);
+        }
+
+        for (int i = 0; i < cells.length; ) {
+            BiomeType biome = cells[i].biomeType;
+            int start = i;
+            while (i < cells.length && cells[i].biomeType == biome) {
+                i++;
+            }
+            writer.writeUnsigned(biome.ordinal());
+            writer.writeUnsigned(i - start);
+        }
+
+        // alternating runs starting with 'false'
+        boolean mask = false;
+        for (int i = 0; i < cells.length; mask = !mask) {
+            int start = i;
+            while (i < cells.length && cells[i].erosionMask == mask) {
+                i++;
+            }
+            writer.writeUnsigned(i - start);
+        }
+
+        Terrain[] terrains = palette.toArray(new Terrain[0]);
+        return new CompressedTile(tile.getRegionX(), tile.getRegionZ(), cells.length, writer.toArray(), terrains);
+    }
+
+    public static long estimateSizeBytes(int cellCount) {
+        return cellCount * (long) Cell.SIZE_BYTES;
+    }
+
+    private static Cell[] collect(Tile tile) {
+        // the pooled backing array may be larger than the tile so size from the tile itself
+        Cell[] cells = new Cell[tile.getBlockSize().arraySize];
+        int[] index = {0};
+        tile.generate(chunk -> {
+            for (int dz = 0; dz < 16; dz++) {
+                for (int dx = 0; dx < 16; dx++) {
+                    cells[index[0]++] = chunk.genCell(dx, dz);
+                }
+            }
+        });
+        return cells;
+    }
+
+    private static void writeQuantized(Writer writer, Cell[] cells, FloatGetter getter) {
+        int prev = 0;
+        for (Cell cell : cells) {
+            float value = Math.min(1F, Math.max(0F, getter.get(cell)));
+            int quantized = Math.round(value * QUANTIZE);
+            writer.writeSigned(quantized - prev);
+            prev = quantized;
+        }
+    }
+
+    private static void readQuantized(Reader reader, Cell[] cells, FloatSetter setter) {
+        int prev = 0;
+        for (Cell cell : cells) {
+            prev += reader.readSigned();
+            setter.set(cell, prev / QUANTIZE);
+        }
+    }
+
+    private static void writeExact(Writer writer, Cell[] cells, FloatGetter getter) {
+        int prev = 0;
+        for (Cell cell : cells) {
+            int bits = Float.floatToRawIntBits(getter.get(cell));
+            writer.writeUnsigned(bits ^ prev);
+            prev = bits;
+        }
+    }
+
+    private static void readExact(Reader reader, Cell[] cells, FloatSetter setter) {
+        int prev = 0;
+        for (Cell cell : cells) {
+            prev ^= reader.readUnsigned();
+            setter.set(cell, Float.intBitsToFloat(prev));
+        }
+    }
+
+    private interface FloatGetter {
+
+        float get(Cell cell);
+    }
+
+    private interface FloatSetter {
+
+        void set(Cell cell, float value);
+    }
+
+    private static class Writer {
+
+        private int size = 0;
+        private byte[] buffer;
+
+        private Writer(int capacity) {
+            buffer = new byte[Math.max(16, capacity)];
+        }
+
+        private void writeSigned(int value) {
+            // zig-zag so that small negative deltas also encode to a single byte
+            writeUnsigned((value << 1) ^ (value >> 31));
+        }
+
+        private void writeUnsigned(int value) {
+            if (size + 5 > buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length << 1);
+            }
+            while ((value & ~0x7F) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        private byte[] toArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+
+    private static class Reader {
+
+        private final byte[] buffer;
+
+        private int index = 0;
+
+        private Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        private int readSigned() {
+            int value = readUnsigned();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private int readUnsigned() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer[index++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.core.tile.gen;
+
+import com.terraforged.core.util.metric.CacheMetric;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+
+// The 'cold' tier of the TileCache. Holds compressed tiles that have expired from the hot tier,
+// evicting the oldest once the byte budget is exceeded. Entries are removed when they are promoted
+// back to full tiles so insertion order is also the least-recently-used order.
+public class CompressedTileCache {
+
+    private final long budget;
+    private final CacheMetric metric = new CacheMetric();
+    private final Long2ObjectLinkedOpenHashMap<CompressedTile> map = new Long2ObjectLinkedOpenHashMap<>();
+
+    private long bytes = 0L;
+
+    public CompressedTileCache(long budget) {
+        this.budget = budget;
+    }
+
+    public CacheMetric getMetric() {
+        return metric;
+    }
+
+    public long getBudget() {
+        return budget;
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    public synchronized void clear() {
+        map.clear();
+        bytes = 0L;
+    }
+
+    public void put(long id, CompressedTile tile) {
+        if (tile.getSizeBytes() > budget) {
+            return;
+        }
+
+        synchronized (this) {
+            CompressedTile previous = map.put(id, tile);
+            if (previous != null) {
+                bytes -= previous.getSizeBytes();
+            }
+            bytes += tile.getSizeBytes();
+
+            while (bytes > budget && !map.isEmpty()) {
+                bytes -= map.removeFirst().getSizeBytes();
+            }
+        }
+    }
+
+    /**
+     * Gets the compressed tile without removing it. It should only be removed (see take) once the caller has
+     * successfully promoted it, so that a promotion that loses a race doesn't throw away the cold copy
+     */
+    public CompressedTile peek(long id) {
+        CompressedTile tile;
+        synchronized (this) {
+            tile = map.get(id);
+        }
+        if (tile == null) {
+            metric.request();
+            metric.miss();
+        }
+        return tile;
+    }
+
+    /**
+     * Removes the tile if it is still the one held for the id, returning true if it was removed
+     */
+    public boolean take(long id, CompressedTile tile) {
+        synchronized (this) {
+            if (map.get(id) != tile) {
+                return false;
+            }
+            map.remove(id);
+            bytes -= tile.getSizeBytes();
+        }
+        metric.request();
+        return true;
+    }
+}
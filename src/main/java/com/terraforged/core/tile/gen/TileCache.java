@@ -27,29 +27,63 @@ package com.terraforged.core.tile.gen;
 import com.terraforged.core.concurrent.Disposable;
 import com.terraforged.core.concurrent.cache.Cache;
 import com.terraforged.core.concurrent.cache.CacheEntry;
+import com.terraforged.core.concurrent.thread.Priority;
+import com.terraforged.core.tile.Size;
 import com.terraforged.core.tile.Tile;
 import com.terraforged.core.tile.chunk.ChunkReader;
+import com.terraforged.core.util.metric.CacheMetric;
 
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.TimeUnit;
 import java.util.function.LongFunction;
 
 public class TileCache implements Disposable.Listener<Tile> {
 
+    // the hot tier is only bounded by expiry unless given a budget, with tiles that expire from it being kept
+    // in the (bounded) cold tier
+    public static final long DEFAULT_HOT_BYTES = Long.MAX_VALUE;
+    public static final long DEFAULT_COLD_BYTES = 64L * 1024L * 1024L;
+
     private final boolean queuing;
+    private final long tileBytes;
     private final TileGenerator generator;
     private final Cache<CacheEntry<Tile>> cache;
+    private final CompressedTileCache compressed;
+    private final CacheMetric metric = new CacheMetric();
     private final LongFunction<CacheEntry<Tile>> syncGetter;
-    private final LongFunction<CacheEntry<Tile>> asyncGetter;
 
     public TileCache(boolean queueNeighbours, TileGenerator generator) {
+        this(queueNeighbours, generator, DEFAULT_HOT_BYTES, DEFAULT_COLD_BYTES);
+    }
+
+    public TileCache(boolean queueNeighbours, TileGenerator generator, long hotBytes, long coldBytes) {
         this.generator = generator;
         this.syncGetter = syncGetter();
-        this.asyncGetter = asyncGetter();
         this.queuing = queueNeighbours;
+        this.tileBytes = CompressedTile.estimateSizeBytes(Size.blocks(generator.factor, generator.border).arraySize);
+        this.compressed = new CompressedTileCache(coldBytes);
         this.cache = new Cache<>(60, 30, TimeUnit.SECONDS);
+        this.cache.setMaxSize((int) Math.min(Integer.MAX_VALUE, Math.max(1L, hotBytes / tileBytes)));
+        this.cache.setExpireListener(this::demote);
         generator.setListener(this);
     }
 
+    public CacheMetric getHotMetric() {
+        return metric;
+    }
+
+    public CacheMetric getColdMetric() {
+        return compressed.getMetric();
+    }
+
+    public long getHotBytes() {
+        return cache.size() * tileBytes;
+    }
+
+    public long getColdBytes() {
+        return compressed.getBytes();
+    }
+
     @Override
     public void onDispose(Tile tile) {
         cache.remove(tile.getRegionId());
@@ -63,6 +97,7 @@ public class TileCache implements Disposable.Listener<Tile> {
         int regionX = generator.chunkToRegion(chunkX);
         int regionZ = generator.chunkToRegion(chunkZ);
         long regionId = Tile.getRegionId(regionX, regionZ);
+        metric.request();
         return cache.map(regionId, syncGetter, entry -> entry.get().getChunk(chunkX, chunkZ));
     }
 
@@ -83,19 +118,125 @@ public class TileCache implements Disposable.Listener<Tile> {
     }
 
     public CacheEntry<Tile> getEntry(int regionX, int regionZ) {
-        return cache.computeIfAbsent(Tile.getRegionId(regionX, regionZ), syncGetter);
+        metric.request();
+        long id = Tile.getRegionId(regionX, regionZ);
+        CacheEntry<Tile> entry = cache.computeIfAbsent(id, syncGetter);
+        if (entry.isCancelled()) {
+            // eg a prefetch that was rejected by the pool before its listener could drop it
+            cache.remove(id, entry);
+            entry = cache.computeIfAbsent(id, syncGetter);
+        }
+        return entry;
     }
 
     public CacheEntry<Tile> queueRegion(int regionX, int regionZ) {
-        return cache.computeIfAbsent(Tile.getRegionId(regionX, regionZ), asyncGetter);
+        metric.request();
+        return queue(Tile.getRegionId(regionX, regionZ), Priority.PREFETCH);
+    }
+
+    /**
+     * Queues the region for generation when the pool has nothing more urgent to do
+     */
+    public CacheEntry<Tile> pregenRegion(int regionX, int regionZ) {
+        metric.request();
+        return queue(Tile.getRegionId(regionX, regionZ), Priority.BACKGROUND);
+    }
+
+    /**
+     * Drops the cold tier. Tiles in the hot tier are released as they expire
+     */
+    public void close() {
+        compressed.clear();
+    }
+
+    /**
+     * Closes the cache and shuts down the generator's thread pool. Only for caches that own their pool
+     */
+    public void shutdown() {
+        close();
+        generator.shutdown();
+    }
+
+    /**
+     * Cancels the region if it is still generating (eg a prefetched region that is no longer needed)
+     */
+    public boolean cancelRegion(int regionX, int regionZ) {
+        long id = Tile.getRegionId(regionX, regionZ);
+        CacheEntry<Tile> entry = cache.get(id);
+        if (entry == null || !entry.cancel()) {
+            return false;
+        }
+        cache.remove(id, entry);
+        return true;
     }
 
     private LongFunction<CacheEntry<Tile>> syncGetter() {
-        return id -> generator.getSync((int) id, (int) (id >> 32));
+        return id -> {
+            // called within the cache's lock when absent so the insert can't lose a race
+            metric.miss();
+            CompressedTile tile = compressed.peek(id);
+            if (tile != null && compressed.take(id, tile)) {
+                return promote(tile).share();
+            }
+            return generator.getSync((int) id, (int) (id >> 32)).share();
+        };
+    }
+
+    private CacheEntry<Tile> queue(long id, Priority priority) {
+        CacheEntry<Tile> entry = cache.get(id);
+        if (entry != null) {
+            return entry;
+        }
+
+        // submitted outside of the cache's lock as the pool's admission policy may run or block on the task
+        CompressedTile tile = compressed.peek(id);
+        CacheEntry<Tile> created;
+        if (tile != null) {
+            created = promote(tile);
+        } else {
+            created = generator.getAsync((int) id, (int) (id >> 32), priority);
+        }
+        // shared before it's inserted so that no reader can build a continuation that might cancel it
+        created.share();
+
+        CacheEntry<Tile> queued = created;
+        entry = cache.computeIfAbsent(id, k -> queued);
+        if (entry == created) {
+            metric.miss();
+            // the cold copy is only dropped once its promotion has been inserted
+            if (tile != null) {
+                compressed.take(id, tile);
+            }
+
+            // the pool's admission policy may reject the task, which cancels the entry. it's dropped so that
+            // the next reader generates the region again rather than finding a cancelled entry
+            created.toFuture().whenComplete((value, error) -> {
+                if (error instanceof CancellationException) {
+                    cache.remove(id, queued);
+                }
+            });
+        } else if (!created.cancel()) {
+            // lost the race to another request but already ran to completion
+            created.close();
+        }
+
+        return entry;
     }
 
-    private LongFunction<CacheEntry<Tile>> asyncGetter() {
-        return id -> generator.getAsync((int) id, (int) (id >> 32));
+    private CacheEntry<Tile> promote(CompressedTile tile) {
+        // decoding is cheap compared to generation so is done lazily by the first reader
+        return CacheEntry.supply(new CallableCompressedTile(tile, generator));
+    }
+
+    private void demote(CacheEntry<Tile> entry) {
+        // tiles that are still generating are not worth waiting for, and failed or cancelled ones have no tile
+        if (!entry.isDone() || entry.isCancelled() || entry.toFuture().isCompletedExceptionally()) {
+            return;
+        }
+        Tile tile = entry.get();
+        if (tile != null) {
+            compressed.put(tile.getRegionId(), CompressedTile.encode(tile));
+        }
     }
 
     private void queueNeighbours(int rx, int rz) {
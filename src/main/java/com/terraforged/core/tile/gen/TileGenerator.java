@@ -26,11 +26,16 @@ package com.terraforged.core.tile.gen;
 
 import com.terraforged.core.concurrent.Disposable;
 import com.terraforged.core.concurrent.cache.CacheEntry;
+import com.terraforged.core.concurrent.thread.ForkJoinThreadPool;
+import com.terraforged.core.concurrent.thread.Priority;
 import com.terraforged.core.concurrent.thread.ThreadPool;
 import com.terraforged.core.tile.Tile;
+import com.terraforged.core.util.metric.Metrics;
 import com.terraforged.world.WorldGenerator;
 import com.terraforged.world.WorldGeneratorFactory;
 
+import java.util.concurrent.CancellationException;
+
 public class TileGenerator {
 
     protected final int factor;
@@ -67,6 +72,14 @@ public class TileGenerator {
         return new TileCache(queueNeighbours, this);
     }
 
+    public TileCache toCache(boolean queueNeighbours, long hotBytes, long coldBytes) {
+        return new TileCache(queueNeighbours, this, hotBytes, coldBytes);
+    }
+
+    public void shutdown() {
+        threadPool.shutdown();
+    }
+
     public CacheEntry<Tile> getSync(int regionX, int regionZ) {
         return CacheEntry.supply(new CallableTile(regionX, regionZ, this));
     }
@@ -76,24 +89,46 @@ public class TileGenerator {
     }
 
     public CacheEntry<Tile> getAsync(int regionX, int regionZ) {
-        return CacheEntry.supplyAsync(new CallableTile(regionX, regionZ, this), threadPool);
+        return getAsync(regionX, regionZ, Priority.DEMAND);
+    }
+
+    public CacheEntry<Tile> getAsync(int regionX, int regionZ, Priority priority) {
+        return CacheEntry.supplyAsync(new CallableTile(regionX, regionZ, this), threadPool, priority);
     }
 
     public CacheEntry<Tile> getAsync(float centerX, float centerZ, float zoom, boolean filter) {
-        return CacheEntry.supplyAsync(new CallableZoomTile(centerX, centerZ, zoom, filter, this), threadPool);
+        return CacheEntry.supplyAsync(new CallableZoomTile(centerX, centerZ, zoom, filter, this), threadPool, Priority.DEMAND);
     }
 
     public Tile generateRegion(int regionX, int regionZ) {
-        Tile tile = createEmptyRegion(regionX, regionZ);
+        return generateRegion(createEmptyRegion(regionX, regionZ));
+    }
+
+    public Tile generateRegion(float centerX, float centerZ, float zoom, boolean filter) {
+        return generateRegion(createEmptyRegion(0, 0), centerX, centerZ, zoom, filter);
+    }
+
+    protected Tile generateRegion(Tile tile) {
+        long start = System.nanoTime();
         tile.generate(generator.getHeightmap());
         postProcess(tile);
-        return tile;
+        return checkCancelled(tile, start);
     }
 
-    public Tile generateRegion(float centerX, float centerZ, float zoom, boolean filter) {
-        Tile tile = createEmptyRegion(0, 0);
+    protected Tile generateRegion(Tile tile, float centerX, float centerZ, float zoom, boolean filter) {
+        long start = System.nanoTime();
         tile.generate(generator.getHeightmap(), centerX, centerZ, zoom);
         postProcess(tile, filter);
+        return checkCancelled(tile, start);
+    }
+
+    protected Tile checkCancelled(Tile tile, long start) {
+        if (tile.isCancelled()) {
+            // return the tile's pooled resources rather than handing out a partially generated tile
+            tile.close();
+            Metrics.TILE_CANCEL.record(System.nanoTime() - start);
+            throw new CancellationException("Tile " + tile.getRegionX() + ":" + tile.getRegionZ() + " was cancelled");
+        }
         return tile;
     }
 
@@ -102,11 +137,11 @@ public class TileGenerator {
     }
 
     protected void postProcess(Tile tile) {
-        generator.getFilters().apply(tile, true);
+        generator.getFilters().apply(tile, true, threadPool);
     }
 
     protected void postProcess(Tile tile, boolean filter) {
-        generator.getFilters().apply(tile, filter);
+        generator.getFilters().apply(tile, filter, threadPool);
     }
 
     public static Builder builder() {
@@ -152,6 +187,9 @@ public class TileGenerator {
 
         public TileGenerator build() {
             if (threadPool.supportsBatching() && batchSize > 1) {
+                if (threadPool instanceof ForkJoinThreadPool) {
+                    return new TileGeneratorForkJoin(this);
+                }
                 return new TileGeneratorBatched(this);
             }
             return new TileGenerator(this);
@@ -35,22 +35,22 @@ public class TileGeneratorBatched extends TileGenerator {
     }
 
     @Override
-    public Tile generateRegion(int regionX, int regionZ) {
-        Tile tile = createEmptyRegion(regionX, regionZ);
+    protected Tile generateRegion(Tile tile) {
+        long start = System.nanoTime();
         try (Resource<Batcher> batcher = threadPool.batcher()) {
             tile.generateArea(generator.getHeightmap(), batcher.get(), batchSize);
         }
         postProcess(tile);
-        return tile;
+        return checkCancelled(tile, start);
     }
 
     @Override
-    public Tile generateRegion(float centerX, float centerZ, float zoom, boolean filter) {
-        Tile tile = createEmptyRegion(0, 0);
+    protected Tile generateRegion(Tile tile, float centerX, float centerZ, float zoom, boolean filter) {
+        long start = System.nanoTime();
         try (Resource<Batcher> batcher = threadPool.batcher()) {
             tile.generateArea(generator.getHeightmap(), batcher.get(), batchSize, centerX, centerZ, zoom);
         }
         postProcess(tile, filter);
-        return tile;
+        return checkCancelled(tile, start);
     }
 }
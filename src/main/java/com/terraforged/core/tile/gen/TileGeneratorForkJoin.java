@@ -0,0 +1,54 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.core.tile.gen;
+
+import com.terraforged.core.concurrent.thread.ForkJoinThreadPool;
+import com.terraforged.core.tile.Tile;
+
+public class TileGeneratorForkJoin extends TileGenerator {
+
+    private final ForkJoinThreadPool pool;
+
+    public TileGeneratorForkJoin(Builder builder) {
+        super(builder);
+        this.pool = (ForkJoinThreadPool) threadPool;
+    }
+
+    @Override
+    protected Tile generateRegion(Tile tile) {
+        long start = System.nanoTime();
+        tile.generateArea(generator.getHeightmap(), pool, batchSize);
+        postProcess(tile);
+        return checkCancelled(tile, start);
+    }
+
+    @Override
+    protected Tile generateRegion(Tile tile, float centerX, float centerZ, float zoom, boolean filter) {
+        long start = System.nanoTime();
+        tile.generateArea(generator.getHeightmap(), pool, batchSize, centerX, centerZ, zoom);
+        postProcess(tile, filter);
+        return checkCancelled(tile, start);
+    }
+}
@@ -51,6 +51,11 @@ public class Metric {
         return String.format("Average: %.3f", average);
     }
 
+    public void record(long nanos) {
+        this.nanos.addAndGet(nanos);
+        this.hits.incrementAndGet();
+    }
+
     public Timer timer() {
         return pool.get().get().punchIn();
     }
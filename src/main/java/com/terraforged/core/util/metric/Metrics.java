@@ -24,16 +24,42 @@
 
 package com.terraforged.core.util.metric;
 
+import com.terraforged.core.concurrent.thread.Priority;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class Metrics {
 
     public static final Metric BATCHER = new Metric();
+    public static final Metric BATCHER_WAIT = new Metric();
     public static final Metric HEIGHTMAP = new Metric();
     public static final Metric RIVER_GEN = new Metric();
+    public static final Metric TILE_GEN = new Metric();
+    public static final Metric TILE_DECODE = new Metric();
+    public static final Metric TILE_CANCEL = new Metric();
+    public static final Metric TASK_REJECT = new Metric();
+    public static final Metric EROSION = new Metric();
+    public static final Metric EROSION_COARSE = new Metric();
+
+    public static final Counter EROSION_DROPLETS = new Counter();
+    public static final Counter EROSION_STEPS = new Counter();
+    public static final Counter EROSION_STEPS_SAVED = new Counter();
+    public static final Counter EROSION_SKIPPED_SAMPLING = new Counter();
+    public static final Counter EROSION_SKIPPED_BUDGET = new Counter();
+    public static final Counter EROSION_MOVED = new Counter();
 
+    private static final Map<String, Metric> STAGES = new ConcurrentHashMap<>();
     private static final AtomicLong timer = new AtomicLong(System.currentTimeMillis());
 
+    /**
+     * Gets the metric for the named filter stage, creating it on first use
+     */
+    public static Metric stage(String name) {
+        return STAGES.computeIfAbsent(name, n -> new Metric());
+    }
+
     public static void print() {
         long now = System.currentTimeMillis();
         if (now - timer.get() > 5000L) {
@@ -41,6 +67,21 @@ public class Metrics {
             System.out.println("Heightmap: " + HEIGHTMAP.average());
             System.out.println("River Gen: " + RIVER_GEN.average());
             System.out.println("Batching:  " + BATCHER.average());
+            System.out.println("Batch Wait: " + BATCHER_WAIT.average());
+            System.out.println("Tile Gen:  " + TILE_GEN.average());
+            System.out.println("Tile Decode: " + TILE_DECODE.average());
+            System.out.println("Tile Cancel: " + TILE_CANCEL.hits() + ", " + TILE_CANCEL.average());
+            System.out.println("Task Reject: " + TASK_REJECT.hits());
+            System.out.println("Erosion: " + EROSION.average() + ", Coarse " + EROSION_COARSE.average() + ", Droplets " + EROSION_DROPLETS.get()
+                    + ", Steps " + EROSION_STEPS.get() + ", Saved " + EROSION_STEPS_SAVED.get()
+                    + ", Skipped (sampling) " + EROSION_SKIPPED_SAMPLING.get() + ", Skipped (budget) " + EROSION_SKIPPED_BUDGET.get()
+                    + ", Moved " + EROSION_MOVED.get());
+            for (Map.Entry<String, Metric> stage : STAGES.entrySet()) {
+                System.out.println("Filter " + stage.getKey() + ": " + stage.getValue().average());
+            }
+            for (Priority priority : Priority.values()) {
+                System.out.println("Queue " + priority + ": " + priority.getQueueDepth() + ", Wait " + priority.getWaitMetric().average());
+            }
         }
     }
 }
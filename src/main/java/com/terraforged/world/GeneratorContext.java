@@ -25,6 +25,7 @@
 package com.terraforged.world;
 
 import com.terraforged.core.Seed;
+import com.terraforged.core.concurrent.Resource;
 import com.terraforged.core.concurrent.thread.ThreadPools;
 import com.terraforged.core.settings.Settings;
 import com.terraforged.core.tile.gen.TileCache;
@@ -78,6 +79,14 @@ public class GeneratorContext {
         return new GeneratorContext(this);
     }
 
+    /**
+     * Gets a context shared with any other world created with the same seed & settings. The handle must be
+     * closed when the world is unloaded, see GeneratorRegistry
+     */
+    public static Resource<GeneratorContext> shared(Settings settings) {
+        return GeneratorRegistry.acquire(settings);
+    }
+
     public static GeneratorContext createNoCache(Terrains terrain, Settings settings) {
         return new GeneratorContext(terrain, settings, StandardTerrainProvider::new, s -> null);
     }
@@ -85,7 +94,7 @@ public class GeneratorContext {
     protected static <T extends Settings> TileCache createCache(WorldGeneratorFactory factory) {
         return TileGenerator.builder()
                 .factory(factory)
-                .size(3, 2)
+                .size(3, factory.getFilters().getBorderChunks())
                 .pool(ThreadPools.createDefault())
                 .build()
                 .toCache(false);
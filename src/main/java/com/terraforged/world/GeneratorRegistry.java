@@ -0,0 +1,285 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.world;
+
+import com.terraforged.core.concurrent.LazyFuture;
+import com.terraforged.core.concurrent.Resource;
+import com.terraforged.core.concurrent.thread.ThreadPool;
+import com.terraforged.core.concurrent.thread.ThreadPools;
+import com.terraforged.core.serialization.serializer.Serializer;
+import com.terraforged.core.serialization.serializer.Writer;
+import com.terraforged.core.settings.Settings;
+import com.terraforged.core.tile.gen.TileCache;
+import com.terraforged.core.tile.gen.TileGenerator;
+import com.terraforged.world.terrain.Terrains;
+import com.terraforged.world.terrain.provider.StandardTerrainProvider;
+import com.terraforged.world.terrain.provider.TerrainProviderFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+// Shares GeneratorContexts (and so their Heightmap, RiverCache, WorldFilters & TileCache) between worlds
+// that are created with the same seed & settings. Contexts are reference counted; once the last handle has
+// been closed the context is dropped from the registry and its TileCache is shut down.
+//
+// Contexts built with the default cache function all generate on one pool owned by the registry, so that
+// any number of distinct worlds run on the same number of threads as a single world would. The pool is shut
+// down once the last of those contexts has been released.
+//
+// Contexts are keyed on the settings fingerprint plus the identity of the terrain provider factory and the
+// cache function, so callers supplying their own must reuse the same instances to share a context. The
+// Terrains are created from the settings by the registry rather than taken from the caller. The context's
+// Seed must not be advanced directly - use copy() as the generator components do.
+public class GeneratorRegistry {
+
+    private static final Object lock = new Object();
+    private static final Map<Key, Entry> registry = new HashMap<>();
+
+    // the pool shared by contexts using OWNED_CACHE & the number of those contexts (created or being created)
+    private static ThreadPool pool = null;
+    private static int poolUsers = 0;
+
+    private static final TerrainProviderFactory STANDARD_TERRAIN = StandardTerrainProvider::new;
+    private static final Function<WorldGeneratorFactory, TileCache> OWNED_CACHE = GeneratorRegistry::createCache;
+
+    public static Resource<GeneratorContext> acquire(Settings settings) {
+        return acquire(settings, STANDARD_TERRAIN, OWNED_CACHE);
+    }
+
+    /**
+     * Unless it is the default, the cache function must give each context its own thread pool as it is shut
+     * down along with the context's TileCache when the last handle is closed
+     */
+    public static <T extends Settings> Resource<GeneratorContext> acquire(T settings, TerrainProviderFactory terrainFactory, Function<WorldGeneratorFactory, TileCache> cache) {
+        Key key = new Key(fingerprint(settings), terrainFactory, cache);
+        Entry entry;
+        synchronized (lock) {
+            entry = registry.computeIfAbsent(key, k -> new Entry(k, settings));
+            if (entry.references++ == 0 && cache == OWNED_CACHE) {
+                poolUsers++;
+            }
+        }
+        try {
+            // construct outside of the lock so that unrelated worlds are not held up
+            return new Handle(entry, entry.context.get());
+        } catch (Throwable t) {
+            release(entry, null);
+            throw t;
+        }
+    }
+
+    public static int size() {
+        synchronized (lock) {
+            return registry.size();
+        }
+    }
+
+    public static String fingerprint(Settings settings) {
+        // the seed is transient so is not written by the serializer
+        Fingerprint fingerprint = new Fingerprint();
+        fingerprint.builder.append(settings.world.seed).append('|');
+        try {
+            Serializer.serialize(settings, fingerprint, false);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+        return fingerprint.builder.toString();
+    }
+
+    private static void release(Entry entry, GeneratorContext context) {
+        boolean owned = entry.key.cache == OWNED_CACHE;
+        ThreadPool unused = null;
+        synchronized (lock) {
+            if (--entry.references > 0) {
+                return;
+            }
+            registry.remove(entry.key, entry);
+            if (owned && --poolUsers == 0) {
+                unused = pool;
+                pool = null;
+            }
+        }
+
+        // no handles remain & none can be acquired for this entry now that it has been removed
+        if (context != null && context.cache != null) {
+            if (owned) {
+                // the pool is shared with the registry's other contexts
+                context.cache.close();
+            } else {
+                context.cache.shutdown();
+            }
+        }
+
+        if (unused != null) {
+            unused.shutdown();
+        }
+    }
+
+    private static TileCache createCache(WorldGeneratorFactory factory) {
+        return TileGenerator.builder()
+                .factory(factory)
+                .size(3, factory.getFilters().getBorderChunks())
+                .pool(getPool())
+                .build()
+                .toCache(false);
+    }
+
+    private static ThreadPool getPool() {
+        synchronized (lock) {
+            // unshared so that it's never handed to (or shut down by) anyone using ThreadPools.create()
+            if (pool == null) {
+                pool = ThreadPools.createUnshared(ThreadPools.defaultPoolSize());
+            }
+            return pool;
+        }
+    }
+
+    private static class Key {
+
+        private final String fingerprint;
+        private final TerrainProviderFactory terrainFactory;
+        private final Function<WorldGeneratorFactory, TileCache> cache;
+
+        private Key(String fingerprint, TerrainProviderFactory terrainFactory, Function<WorldGeneratorFactory, TileCache> cache) {
+            this.fingerprint = fingerprint;
+            this.terrainFactory = terrainFactory;
+            this.cache = cache;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return terrainFactory == key.terrainFactory && cache == key.cache && fingerprint.equals(key.fingerprint);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = fingerprint.hashCode();
+            result = 31 * result + System.identityHashCode(terrainFactory);
+            result = 31 * result + System.identityHashCode(cache);
+            return result;
+        }
+    }
+
+    private static class Entry {
+
+        private final Key key;
+        private final LazyFuture<GeneratorContext> context;
+
+        private int references = 0;
+
+        private <T extends Settings> Entry(Key key, T settings) {
+            this.key = key;
+            this.context = new LazyFuture<>(() -> new GeneratorContext(Terrains.create(settings), settings, key.terrainFactory, key.cache));
+        }
+    }
+
+    private static class Handle implements Resource<GeneratorContext> {
+
+        private final Entry entry;
+        private final GeneratorContext context;
+
+        private boolean open = true;
+
+        private Handle(Entry entry, GeneratorContext context) {
+            this.entry = entry;
+            this.context = context;
+        }
+
+        @Override
+        public GeneratorContext get() {
+            return context;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (open) {
+                open = false;
+                release(entry, context);
+            }
+        }
+    }
+
+    private static class Fingerprint implements Writer {
+
+        private final StringBuilder builder = new StringBuilder(1024);
+
+        @Override
+        public Writer name(String name) {
+            builder.append(name).append('=');
+            return this;
+        }
+
+        @Override
+        public Writer beginObject() {
+            builder.append('{');
+            return this;
+        }
+
+        @Override
+        public Writer endObject() {
+            builder.append('}');
+            return this;
+        }
+
+        @Override
+        public Writer beginArray() {
+            builder.append('[');
+            return this;
+        }
+
+        @Override
+        public Writer endArray() {
+            builder.append(']');
+            return this;
+        }
+
+        @Override
+        public Writer value(String value) {
+            builder.append('"').append(value).append("\",");
+            return this;
+        }
+
+        @Override
+        public Writer value(float value) {
+            builder.append(Float.floatToIntBits(value)).append(',');
+            return this;
+        }
+
+        @Override
+        public Writer value(int value) {
+            builder.append(value).append(',');
+            return this;
+        }
+    }
+}
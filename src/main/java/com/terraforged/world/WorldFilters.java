@@ -24,9 +24,12 @@
 
 package com.terraforged.world;
 
+import com.terraforged.core.concurrent.thread.ThreadPool;
 import com.terraforged.core.filter.BeachDetect;
 import com.terraforged.core.filter.Erosion;
-import com.terraforged.core.filter.Filterable;
+import com.terraforged.core.filter.FilterPipeline;
+import com.terraforged.core.filter.FilterPipeline.Field;
+import com.terraforged.core.filter.FilterPipeline.Parallelism;
 import com.terraforged.core.filter.Smoothing;
 import com.terraforged.core.filter.Steepness;
 import com.terraforged.core.settings.FilterSettings;
@@ -34,44 +37,87 @@ import com.terraforged.core.tile.Size;
 import com.terraforged.core.tile.Tile;
 import com.terraforged.world.rivermap.RiverPostProcessor;
 
-import java.util.function.IntFunction;
-
 public class WorldFilters {
 
-    private final Smoothing smoothing;
-    private final Steepness steepness;
-    private final BeachDetect beach;
-    private final FilterSettings settings;
-    private final IntFunction<Erosion> erosionFactory;
-    private final Object lock = new Object();
-    private Erosion erosion = null;
+    private final FilterPipeline pipeline;
 
     public WorldFilters(GeneratorContext context) {
         context = context.copy();
-        this.settings = context.settings.filters;
-        this.beach = new BeachDetect(context);
-        this.smoothing = new Smoothing(context.settings, context.levels);
-        this.steepness = new Steepness(1, 10F, context.terrain, context.levels);
-        this.erosionFactory = Erosion.factory(context);
+        FilterSettings settings = context.settings.filters;
+        FilterPipeline.Builder builder = FilterPipeline.builder();
+        for (FilterSettings.Type type : settings.pipeline.getStages()) {
+            FilterPipeline.Stage stage = createStage(type, context);
+            if (stage != null) {
+                builder.add(stage);
+            }
+        }
+        this.pipeline = builder.build();
+    }
+
+    public FilterPipeline getPipeline() {
+        return pipeline;
+    }
+
+    /**
+     * The border in blocks that a tile needs for its interior to be filtered consistently with its neighbours
+     */
+    public int getHalo() {
+        return pipeline.getHalo();
+    }
+
+    /**
+     * The halo rounded up to whole chunks, as tiles are generated a chunk at a time
+     */
+    public int getBorderChunks() {
+        return Size.blockToChunk(getHalo() + 15);
     }
 
     public void apply(Tile tile, boolean optionalFilters) {
-        Filterable map = tile.filterable();
+        apply(tile, optionalFilters, null);
+    }
 
-        if (optionalFilters) {
-            getErosion(map.getSize()).apply(map, tile.getRegionX(), tile.getRegionZ(), settings.erosion.iterations);
-            smoothing.apply(map, tile.getRegionX(), tile.getRegionZ(), settings.smoothing.iterations);
-        }
-        steepness.apply(map, tile.getRegionX(), tile.getRegionZ(), 1);
-        beach.apply(map, tile.getRegionX(), tile.getRegionZ(), 1);
+    public void apply(Tile tile, boolean optionalFilters, ThreadPool pool) {
+        pipeline.apply(tile, optionalFilters, pool);
     }
 
-    private Erosion getErosion(Size size) {
-        synchronized (lock) {
-            if (erosion == null || erosion.getSize() != size.total) {
-                erosion = erosionFactory.apply(size.total);
-            }
+    private static FilterPipeline.Stage createStage(FilterSettings.Type type, GeneratorContext context) {
+        FilterSettings settings = context.settings.filters;
+        switch (type) {
+            case EROSION:
+                return new FilterPipeline.Stage("erosion", Erosion.create(context))
+                        .iterations(settings.erosion.iterations)
+                        .reads(Field.VALUE, Field.TERRAIN, Field.MASKS)
+                        .writes(Field.VALUE, Field.EROSION, Field.SEDIMENT)
+                        .parallel(Parallelism.TILE)
+                        .approximate()
+                        .optional();
+            case SMOOTHING:
+                return new FilterPipeline.Stage("smoothing", new Smoothing(context.settings, context.levels))
+                        .iterations(settings.smoothing.iterations)
+                        .reads(Field.VALUE, Field.TERRAIN, Field.MASKS)
+                        .writes(Field.VALUE)
+                        .parallel(Parallelism.ROWS)
+                        .optional();
+            case STEEPNESS:
+                return new FilterPipeline.Stage("steepness", new Steepness(1, 10F, context.terrain, context.levels))
+                        .reads(Field.VALUE)
+                        .writes(Field.GRADIENT)
+                        .parallel(Parallelism.ROWS);
+            case BEACH:
+                return new FilterPipeline.Stage("beach", new BeachDetect(context))
+                        .reads(Field.VALUE, Field.TERRAIN, Field.MASKS)
+                        .writes(Field.TERRAIN)
+                        .parallel(Parallelism.ROWS);
+            case RIVERS:
+                // the river path is traced across the whole tile so no halo can make it match up with the
+                // neighbouring tiles' paths. seams between tiles are not guaranteed for this stage
+                return new FilterPipeline.Stage("rivers", new RiverPostProcessor(context))
+                        .reads(Field.VALUE)
+                        .writes(Field.VALUE, Field.WATER_LEVEL, Field.TERRAIN)
+                        .approximate()
+                        .optional();
+            default:
+                return null;
         }
-        return erosion;
     }
 }
@@ -26,6 +26,7 @@ package com.terraforged.world.continent.generator;
 
 import com.terraforged.core.NumConstants;
 import com.terraforged.core.Seed;
+import com.terraforged.core.ThreadContext;
 import com.terraforged.core.cell.Cell;
 import com.terraforged.core.settings.WorldSettings;
 import com.terraforged.n2d.Module;
@@ -41,6 +42,8 @@ import com.terraforged.world.heightmap.ControlPoints;
 
 public abstract class ContinentGenerator implements Continent {
 
+    private static final ThreadContext.Key<Cell> CELL = ThreadContext.register(Cell::new);
+
     protected final int seed;
     protected final float frequency;
     protected final int continentScale;
@@ -77,7 +80,9 @@ public abstract class ContinentGenerator implements Continent {
 
     @Override
     public float getValue(float x, float y) {
-        Cell cell = new Cell();
+        // not the context's shared cell as callers may be part way through using it
+        Cell cell = CELL.get();
+        cell.reset();
         apply(cell, x, y);
         return cell.continentEdge;
     }
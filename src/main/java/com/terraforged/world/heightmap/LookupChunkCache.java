@@ -0,0 +1,106 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 TerraForged
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.terraforged.world.heightmap;
+
+import com.terraforged.core.cell.Cell;
+import com.terraforged.core.concurrent.LazyFuture;
+import com.terraforged.core.concurrent.cache.Cache;
+import com.terraforged.core.concurrent.cache.CacheEntry;
+import com.terraforged.core.tile.Tile;
+import com.terraforged.core.util.metric.CacheMetric;
+import com.terraforged.world.rivermap.Rivermap;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+// Serves WorldLookup queries that miss the TileCache. Rather than generating one cell per query the
+// whole 16x16 chunk containing it is generated in a single pass so that nearby probes (eg from
+// structure placement) are answered from memory.
+public class LookupChunkCache {
+
+    public static final long DEFAULT_BYTES = 8L * 1024L * 1024L;
+
+    private static final int CHUNK_BYTES = Cell.SIZE_BYTES * 256;
+
+    private final Heightmap heightmap;
+    private final Cache<CacheEntry<Cell[]>> cache;
+    private final CacheMetric metric = new CacheMetric();
+    private final LongFunction<CacheEntry<Cell[]>> generator = this::generate;
+
+    public LookupChunkCache(Heightmap heightmap) {
+        this(heightmap, DEFAULT_BYTES);
+    }
+
+    public LookupChunkCache(Heightmap heightmap, long maxBytes) {
+        int maxChunks = (int) Math.min(Integer.MAX_VALUE, Math.max(1L, maxBytes / CHUNK_BYTES));
+        this.heightmap = heightmap;
+        this.cache = new Cache<>(Math.min(maxChunks, 256), 30, 10, TimeUnit.SECONDS);
+        this.cache.setMaxSize(maxChunks);
+    }
+
+    public CacheMetric getMetric() {
+        return metric;
+    }
+
+    public long getBytes() {
+        return cache.size() * (long) CHUNK_BYTES;
+    }
+
+    public void apply(Cell cell, int x, int z) {
+        metric.request();
+        long id = Tile.getRegionId(x >> 4, z >> 4);
+        // the entry is created under the cache lock but only generated by the first reader
+        CacheEntry<Cell[]> entry = cache.computeIfAbsent(id, generator);
+        cell.copy(entry.get()[((z & 15) << 4) + (x & 15)]);
+    }
+
+    private CacheEntry<Cell[]> generate(long id) {
+        metric.miss();
+        int chunkX = (int) id;
+        int chunkZ = (int) (id >> 32);
+        return CacheEntry.supply(new LazyFuture<>(() -> generate(chunkX << 4, chunkZ << 4)));
+    }
+
+    private Cell[] generate(int blockX, int blockZ) {
+        Rivermap rivers = null;
+        Cell[] cells = new Cell[256];
+        for (int dz = 0; dz < 16; dz++) {
+            for (int dx = 0; dx < 16; dx++) {
+                Cell cell = new Cell();
+                float x = blockX + dx;
+                float z = blockZ + dz;
+                heightmap.applyBase(cell, x, z);
+
+                // neighbouring cells almost always share a river map
+                rivers = Rivermap.get(cell, rivers, heightmap);
+                heightmap.applyRivers(cell, x, z, rivers);
+
+                heightmap.applyClimate(cell, x, z);
+                cells[(dz << 4) + dx] = cell;
+            }
+        }
+        return cells;
+    }
+}
@@ -39,20 +39,31 @@ public class WorldLookup {
     private final TileCache cache;
     private final Heightmap heightmap;
     private final GeneratorContext context;
+    private final LookupChunkCache chunkCache;
 
     public WorldLookup(WorldGeneratorFactory factory, GeneratorContext context) {
+        this(factory, context, LookupChunkCache.DEFAULT_BYTES);
+    }
+
+    public WorldLookup(WorldGeneratorFactory factory, GeneratorContext context, long chunkCacheBytes) {
         this.context = context;
         this.cache = context.cache;
         this.heightmap = factory.getHeightmap();
         this.waterLevel = context.levels.water;
         this.beachLevel = context.levels.water(5);
+        this.chunkCache = new LookupChunkCache(heightmap, chunkCacheBytes);
+    }
+
+    public LookupChunkCache getChunkCache() {
+        return chunkCache;
     }
 
     public Resource<Cell> get(int x, int z) {
-        ChunkReader chunk = cache.getChunk(x >> 4, z >> 4);
-        Resource<Cell> cell = Cell.pooled();
-        cell.get().copy(chunk.getCell(x & 15, z & 15));
-        return cell;
+        try (ChunkReader chunk = cache.getChunk(x >> 4, z >> 4)) {
+            Resource<Cell> cell = Cell.pooled();
+            cell.get().copy(chunk.getCell(x & 15, z & 15));
+            return cell;
+        }
     }
 
     public Resource<Cell> getCell(int x, int z) {
@@ -105,7 +116,7 @@ public class WorldLookup {
     }
 
     private void compute(Cell cell, int x, int z) {
-        heightmap.apply(cell, x, z);
+        chunkCache.apply(cell, x, z);
 
         // approximation - actual beaches depend on steepness but that's too expensive to calculate
         if (cell.terrain == context.terrain.coast && cell.value > waterLevel && cell.value <= beachLevel) {
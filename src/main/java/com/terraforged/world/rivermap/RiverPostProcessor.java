@@ -23,6 +23,13 @@ public class RiverPostProcessor implements Filter {
 
     ;
 
+    // the path runs from the tile's highest point to its nearest edge, so depends on the whole tile rather
+    // than a neighbourhood of each cell. there is no border wide enough to make paths agree across tiles
+    @Override
+    public int getHalo() {
+        return 0;
+    }
+
     @Override
     public void apply(Filterable map, int seedX, int seedZ, int iterations) {
         List<Integer> riverPath = riverPath(map);
@@ -25,6 +25,7 @@
 package com.terraforged.world.rivermap.gen;
 
 import com.terraforged.core.Seed;
+import com.terraforged.core.ThreadContext;
 import com.terraforged.core.cell.Cell;
 import com.terraforged.core.concurrent.Resource;
 import com.terraforged.core.settings.Settings;
@@ -68,6 +69,8 @@ public class RiverGenerator {
 
     private static final AtomicInteger listSize = new AtomicInteger(32);
 
+    private static final ThreadContext.Key<MutableVeci> POS = ThreadContext.register(MutableVeci::new);
+
     private final int count;
     private final int mainValleyWidth;
     private final int forkValleyWidth;
@@ -184,7 +187,9 @@ public class RiverGenerator {
 
 
     public List<float[]> riverPath(Heightmap heightmap,int x, int z) {
-        MutableVeci pos = new MutableVeci(x,z);
+        MutableVeci pos = POS.get();
+        pos.x = x;
+        pos.z = z;
         int topBorder = z - (int) heightmap.getContinent().getDistanceToEdge(x,z,0f,-1f, pos);
         int bottomBorder = z + (int) heightmap.getContinent().getDistanceToEdge(x,z,0f,1f, pos);
         int leftBorder = x - (int) heightmap.getContinent().getDistanceToEdge(x,z,-1f,0f, pos);
@@ -24,6 +24,7 @@
 
 package com.terraforged.world.rivermap.river;
 
+import com.terraforged.core.ThreadContext;
 import com.terraforged.core.cell.Cell;
 import com.terraforged.n2d.Module;
 import com.terraforged.n2d.Source;
@@ -40,6 +41,7 @@ import java.util.Random;
 public class River extends TerrainPopulator implements Comparable<River> {
 
     private static final float DEPTH_FADE_STRENGTH = 0.5F;
+    private static final ThreadContext.Key<float[]> VALUES = ThreadContext.register(() -> new float[4]);
     private static final float MIN_WIDTH2 = 1.5F;
 
     public final boolean main;
@@ -84,7 +86,7 @@ public class River extends TerrainPopulator implements Comparable<River> {
     @Override
     public void apply(Cell cell, float x, float z) {
 
-        float [] alphaHeightSig = valley.getValues(x,z);
+        float [] alphaHeightSig = valley.getValues(x, z, VALUES.get());
         float alpha = alphaHeightSig[0];
 
         float valleyAlpha = alpha;
@@ -137,7 +139,8 @@ public class River extends TerrainPopulator implements Comparable<River> {
         cell.value = NoiseUtil.lerp(cell.value, bankHeight, valleyAlpha * valleyMod);
 
 
-        float banksAlpha = banks.getValues(x, z)[0];
+        // the valley values have all been read by this point so the buffer can be reused
+        float banksAlpha = banks.getValues(x, z, alphaHeightSig)[0];
         if (banksAlpha == 0) {
             return;
         }
@@ -24,21 +24,20 @@ public class RiverLine {
         this.length2 = this.dx * this.dx + this.dy * this.dy;
     }
 
-    public float[] getAlphaAndT(float x, float y) {
-        float[] dist2AndT = this.getDistance2(x, y);
-        if (dist2AndT[0] > this.radius2) {
-            return null;
-        } else {
-            return new float[]{(1.0F - dist2AndT[0] / this.radius2), dist2AndT[1]} ;
-        }
-    }
-
-    private float[] getDistance2(float x, float y) {
+    // writes the alpha & t of the nearest point on the line into out[offset] & out[offset + 1]. returns false
+    // (leaving out untouched) if the position is outside of the line's radius
+    public boolean getAlphaAndT(float x, float y, float[] out, int offset) {
         float t = (x - this.x1) * this.dx + (y - this.y1) * this.dy;
         float s = NoiseUtil.clamp(t / this.length2, 0.0F, 1.0F);
         float ix = this.x1 + s * this.dx;
         float iy = this.y1 + s * this.dy;
-        return new float[] {dist2(x, y, ix, iy), s};
+        float dist2 = dist2(x, y, ix, iy);
+        if (dist2 > this.radius2) {
+            return false;
+        }
+        out[offset] = 1.0F - dist2 / this.radius2;
+        out[offset + 1] = s;
+        return true;
     }
 
     public static float dist2(float x1, float y1, float x2, float y2) {
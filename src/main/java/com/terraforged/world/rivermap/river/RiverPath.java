@@ -22,22 +22,33 @@ public class RiverPath {
     }
 
     public float[] getValues(float x, float y) {
-        float[] maxValAndAccordingT = {0.0f, 0.0f};
+        return getValues(x, y, new float[4]);
+    }
+
+    // writes {alpha, heightA, heightB, t} into the (at least 4 long) result array so that callers can reuse it
+    public float[] getValues(float x, float y, float[] result) {
+        float maxVal = 0.0f;
+        float accordingT = 0.0f;
         int minDistIndex = 0;
         for (int i = 0; i < path.size(); i++) {
-            float[] distAndT = path.get(i).getAlphaAndT(x,y);
-            if(distAndT != null && distAndT[0] > maxValAndAccordingT[0]){
-                maxValAndAccordingT = distAndT;
+            if(path.get(i).getAlphaAndT(x, y, result, 0) && result[0] > maxVal){
+                maxVal = result[0];
+                accordingT = result[1];
                 minDistIndex = i;
             }
         }
-        if(maxValAndAccordingT[0] == 0.0f){
-            return new float[] {0.0f, 0.0f, 0.0f, 0.0f};
+        if(maxVal == 0.0f){
+            result[0] = 0.0f;
+            result[1] = 0.0f;
+            result[2] = 0.0f;
+            result[3] = 0.0f;
+            return result;
         }
-        return new float[] {maxValAndAccordingT[0],
-                heights.get(minDistIndex),
-                heights.get(Math.min(minDistIndex+1, heights.size())),
-                maxValAndAccordingT[1]};
+        result[0] = maxVal;
+        result[1] = heights.get(minDistIndex);
+        result[2] = heights.get(Math.min(minDistIndex+1, heights.size()));
+        result[3] = accordingT;
+        return result;
     }
 
 